@@ -157,6 +157,7 @@ public class AddItem extends JFrame implements ActionListener, FocusListener {
 
             if (reference.hasItem(item)) {
                 reference.addItemQuantity(name, quantity);
+                reference.sealEpoch();
             } else {
                 for (Slot refItem : reference.getSlots()) {
                     if (refItem.getItem() != null && refItem.getItem().getName().equalsIgnoreCase(name)) {
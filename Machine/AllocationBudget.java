@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+
+/**
+ * The AllocationBudget class checks that the purchase path of the vending machine does not allocate
+ * more memory than it is allowed to. It measures the bytes allocated per operation with BenchmarkHarness
+ * for buyRegularItem, buyCompoundItem, acceptMoney and cancelTransaction, compares them with their
+ * budgets, and appends the figures to a CSV history file so they can be followed over time.
+ *
+ * The purchases are measured through the headless purchase API that the Swing methods call, so no
+ * panel is created. The cancelTransaction figure includes the acceptMoney call that gives it money
+ * to return. The program exits with status 1 when an operation goes over its budget, so it can fail
+ * a script. The Maven build runs the same checks with the default budgets in AllocationBudgetTest,
+ * which appends its figures to target/allocation-history.csv.
+ *
+ * The default budgets for the purchases are about 15% above their measured figures (488.6 and 575.6 bytes),
+ * so a change that adds an object or two to a purchase fails the build. The other two operations allocate
+ * nothing; their budget only leaves room for the error of averaging over a round.
+ *
+ * Usage: java AllocationBudget [history=allocation-history.csv] [ops=50000]
+ *                              [buyRegularItem=bytes] [buyCompoundItem=bytes] [acceptMoney=bytes] [cancelTransaction=bytes]
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class AllocationBudget {
+    // Declaration of constants
+    private static final String[] OPERATIONS = {"buyRegularItem", "buyCompoundItem", "acceptMoney", "cancelTransaction"};
+    private static final long[] DEFAULT_BUDGETS = {560, 660, 16, 16};
+    private static final Denomination PAYMENT = new Denomination(100, "Bill");
+    private static final Denomination COIN = new Denomination(5, "Coin");
+
+    /**
+     * Runs the allocation checks.
+     * @param args is the optional list of parameters, written as name=value
+     */
+    public static void main (String[] args) {
+        String history = BenchmarkHarness.param(args, "history", "allocation-history.csv");
+        int ops = Integer.parseInt(BenchmarkHarness.param(args, "ops", "50000"));
+        String time = Instant.now().toString();
+        boolean passed = true;
+
+        if (BenchmarkHarness.allocatedBytes() < 0) {
+            System.out.println("This virtual machine does not count allocated bytes; nothing was checked.");
+            return;
+        }
+
+        System.out.println("operation,bytesPerOp,budget,result");
+        try {
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                long budget = Long.parseLong(BenchmarkHarness.param(args, OPERATIONS[i], String.valueOf(DEFAULT_BUDGETS[i])));
+                double bytes = bytesPerOp(OPERATIONS[i], ops);
+                String line = result(OPERATIONS[i], bytes, budget);
+
+                System.out.println(line);
+                appendHistory(history, time, line);
+                passed &= bytes <= budget;
+            }
+        }
+        catch (IOException e) {
+            System.out.println("ERROR: Could not write " + history + ": " + e);
+            System.exit(2);
+        }
+
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * This method will retrieve the default budget of an operation.
+     * @param name is the name of the operation
+     * @return the greatest number of bytes the operation may allocate
+     */
+    static long getBudget (String name) {
+        for (int i = 0; i < OPERATIONS.length; i++)
+            if (OPERATIONS[i].equals(name))
+                return DEFAULT_BUDGETS[i];
+        throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+
+    /**
+     * This method will format the result of an operation as a line of the history file, without its time.
+     * @param name is the name of the operation
+     * @param bytes is the number of bytes allocated per operation
+     * @param budget is the budget of the operation
+     * @return the operation, the bytes per operation, the budget and PASS or FAIL, separated by commas
+     */
+    static String result (String name, double bytes, long budget) {
+        return name + "," + String.format("%.1f", bytes) + "," + budget + "," + (bytes <= budget ? "PASS" : "FAIL");
+    }
+
+    /**
+     * This method will append a result to a history file, creating the file and its directory if needed.
+     * @param history is the path of the history file
+     * @param time is the time of the run the result belongs to
+     * @param line is the result, as formatted by result
+     * @throws IOException if the file cannot be written
+     */
+    static void appendHistory (String history, String time, String line) throws IOException {
+        File parent = new File(history).getAbsoluteFile().getParentFile();
+
+        if (parent != null)
+            parent.mkdirs();
+        try (PrintWriter out = new PrintWriter(new FileWriter(history, true))) {
+            out.println(time + "," + line);
+        }
+    }
+
+    /**
+     * This method will warm up an operation on a new machine and measure the bytes it allocates, with logging turned off.
+     * @param name is the name of the operation
+     * @param ops is the number of operations in every round
+     * @return the average number of bytes allocated by the operation, or -1 if the virtual machine does not count them
+     */
+    static double bytesPerOp (String name, int ops) {
+        MachineLog.setLevel(LogLevel.OFF);
+        return new BenchmarkHarness(5, 3, ops).measure(operation(name)).getBytesPerOp();
+    }
+
+    /**
+     * This method will build the operation to measure on a new machine.
+     * @param name is the name of the operation
+     * @return the operation
+     */
+    private static BenchmarkHarness.Operation operation (String name) {
+        SpecialVendingMachine machine = CoreBenchmark.build(16, 50, 500, 3);
+        CompoundSlot compound = machine.getCompoundItem("Combo");
+        CashHolder customer = new CashHolder("Customer");
+        CashHolder reserve = machine.getMachineReserve();
+
+        switch (name) {
+            case "buyRegularItem":
+                return i -> {
+                    int number = 1 + (int) (i % 16);
+                    Slot slot = machine.getSlot(number);
+
+                    if (slot.getQuantity() == 0)
+                        slot.setQuantity(50);
+                    machine.acceptMoney(PAYMENT, 1);
+                    PurchaseResult result = machine.purchase(number, 1, customer);
+                    if ((i & 63) == 0)
+                        customer.transferAll(reserve);
+                    return result.getChangeCentavos();
+                };
+            case "buyCompoundItem":
+                return i -> {
+                    if (machine.computeCompoundQuantity(compound) == 0) {
+                        for (int s = 1; s <= 3; s++)
+                            machine.getSlot(s).setQuantity(50);
+                    }
+                    machine.acceptMoney(PAYMENT, 1);
+                    PurchaseResult result = machine.purchaseCompound(compound.getSlotNum(), 1, customer);
+                    if ((i & 63) == 0)
+                        customer.transferAll(reserve);
+                    return result.getChangeCentavos();
+                };
+            case "acceptMoney":
+                return i -> {
+                    machine.acceptMoney(COIN, 1);
+                    if ((i & 1023) == 0)
+                        machine.cancelTransaction(customer);
+                    return 1;
+                };
+            case "cancelTransaction":
+                return i -> {
+                    machine.acceptMoney(COIN, 1);
+                    machine.cancelTransaction(customer);
+                    return 1;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+    }
+}
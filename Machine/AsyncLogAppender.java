@@ -0,0 +1,117 @@
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The AsyncLogAppender class writes log messages to a PrintStream from a background thread,
+ * so that the thread logging a message never waits on the stream.
+ *
+ * Messages are put in a fixed-size ring buffer. A thread that logs only claims the next position
+ * with a compare-and-set and stores its message there; the background thread takes the messages
+ * in the order their positions were claimed and prints them. When the buffer is full, new messages
+ * are dropped and the number of dropped messages is printed once there is room again.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class AsyncLogAppender implements LogAppender {
+    // Declaration of variables
+    private static final long IDLE_NANOS = 1000000;
+    private final AtomicReferenceArray<String> buffer;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+    private volatile boolean idle;
+    private final PrintStream out;
+    private final Thread worker;
+
+    /**
+     * Constructs a new AsyncLogAppender and starts its background thread.
+     * @param out is the stream the messages will be printed to
+     * @param capacity is the number of messages the buffer can hold, rounded up to a power of two
+     */
+    public AsyncLogAppender (PrintStream out, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.out = out;
+        this.buffer = new AtomicReferenceArray<String>(size);
+        this.mask = size - 1;
+        this.worker = new Thread(this::drain, "machine-log");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void append (LogLevel level, String message) {
+        long position;
+
+        do {
+            position = claimed.get();
+            if (position - consumed >= buffer.length()) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(position, position + 1));
+
+        buffer.set((int) position & mask, String.valueOf(message));
+
+        if (idle)
+            LockSupport.unpark(worker);
+    }
+
+    /**
+     * This method will wait until every message appended so far has been printed.
+     */
+    public void flush () {
+        long target = claimed.get();
+
+        while (consumed < target) {
+            LockSupport.unpark(worker);
+            Thread.yield();
+        }
+        out.flush();
+    }
+
+    /**
+     * This method will retrieve the number of messages that were dropped because the buffer was full
+     * and have not been reported yet.
+     * @return the number of dropped messages
+     */
+    public long getDropped () {
+        return dropped.get();
+    }
+
+    /**
+     * This method will print the messages of the buffer in order, for as long as the program runs.
+     */
+    private void drain () {
+        while (true) {
+            long position = consumed;
+            int index = (int) position & mask;
+            String message = buffer.get(index);
+
+            if (message == null) {
+                if (position == claimed.get()) {
+                    idle = true;
+                    if (position == claimed.get())
+                        LockSupport.parkNanos(this, IDLE_NANOS);
+                    idle = false;
+                }
+                else {
+                    Thread.yield();
+                }
+                continue;
+            }
+
+            buffer.set(index, null);
+            consumed = position + 1;
+            out.println(message);
+
+            if (dropped.get() > 0)
+                out.println("(" + dropped.getAndSet(0) + " log messages dropped)");
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The BenchmarkHarness class times an operation the way a microbenchmark would: it runs the operation
+ * through warm-up rounds so the JIT compiler can settle, then through measured rounds, and reports the
+ * average time per operation, the throughput and the bytes allocated per operation.
+ *
+ * Allocation is read from the allocation counter of the current thread, which is what the gc profiler
+ * of JMH also reports. It is -1 on virtual machines that do not keep that counter.
+ *
+ * The benchmark programs read their parameters, written as name=value on the command line,
+ * with param and intList.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public final class BenchmarkHarness {
+
+    /**
+     * The Operation interface is the code being measured. It returns a value so that the work
+     * cannot be optimized away. It is also a LongUnaryOperator, so the JMH suite can call it.
+     */
+    public interface Operation extends LongUnaryOperator {
+        /**
+         * Runs the operation once.
+         * @param iteration is the number of the call, starting at 0
+         * @return any value computed by the operation
+         */
+        public long run (long iteration);
+
+        /**
+         * Runs the operation once.
+         * @param iteration is the number of the call, starting at 0
+         * @return any value computed by the operation
+         */
+        @Override
+        public default long applyAsLong (long iteration) {
+            return run(iteration);
+        }
+    }
+
+    /**
+     * The Result class holds the measurements of one benchmark.
+     */
+    public static final class Result {
+        // Declaration of variables
+        private final long operations;
+        private final double nsPerOp;
+        private final double bytesPerOp;
+
+        /**
+         * Constructs the result of a benchmark.
+         * @param operations is the number of measured operations
+         * @param nsPerOp is the average time of an operation, in nanoseconds
+         * @param bytesPerOp is the average number of bytes allocated by an operation, or -1 if unknown
+         */
+        private Result (long operations, double nsPerOp, double bytesPerOp) {
+            this.operations = operations;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        /**
+         * This method will retrieve the number of measured operations.
+         * @return the number of operations
+         */
+        public long getOperations () {
+            return operations;
+        }
+
+        /**
+         * This method will retrieve the average time of an operation.
+         * @return the time per operation, in nanoseconds
+         */
+        public double getNsPerOp () {
+            return nsPerOp;
+        }
+
+        /**
+         * This method will retrieve the number of operations per second.
+         * @return the throughput
+         */
+        public double getOpsPerSecond () {
+            return 1e9 / nsPerOp;
+        }
+
+        /**
+         * This method will retrieve the average number of bytes allocated by an operation.
+         * @return the bytes per operation, or -1 if the virtual machine does not count allocation
+         */
+        public double getBytesPerOp () {
+            return bytesPerOp;
+        }
+    }
+
+    // Declaration of variables
+    private static volatile long sink;
+    private final int warmupRounds;
+    private final int measuredRounds;
+    private final long operationsPerRound;
+
+    /**
+     * Constructs a harness with the given number of rounds.
+     * @param warmupRounds is the number of rounds run before measuring
+     * @param measuredRounds is the number of rounds that are measured
+     * @param operationsPerRound is the number of operations in every round
+     */
+    public BenchmarkHarness (int warmupRounds, int measuredRounds, long operationsPerRound) {
+        this.warmupRounds = warmupRounds;
+        this.measuredRounds = measuredRounds;
+        this.operationsPerRound = operationsPerRound;
+    }
+
+    /**
+     * This method will warm up and measure an operation.
+     * @param operation is the operation to measure
+     * @return the measurements
+     */
+    public Result measure (Operation operation) {
+        long iteration = 0;
+
+        for (int round = 0; round < warmupRounds; round++)
+            iteration = runRound(operation, iteration);
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int round = 0; round < measuredRounds; round++)
+            iteration = runRound(operation, iteration);
+
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = allocatedBytes();
+        long operations = measuredRounds * operationsPerRound;
+        double bytesPerOp = (bytesBefore < 0 || bytesAfter < 0) ? -1 : (double) (bytesAfter - bytesBefore) / operations;
+
+        return new Result(operations, (double) elapsed / operations, bytesPerOp);
+    }
+
+    /**
+     * This method will run one round of an operation.
+     * @param operation is the operation to run
+     * @param iteration is the number of the first call of the round
+     * @return the number of the first call of the next round
+     */
+    private long runRound (Operation operation, long iteration) {
+        long value = 0;
+
+        for (long i = 0; i < operationsPerRound; i++)
+            value += operation.run(iteration++);
+
+        sink += value;
+        return iteration;
+    }
+
+    /**
+     * This method will read the number of bytes allocated so far by the current thread.
+     * @return the allocated bytes, or -1 if the virtual machine does not count them
+     */
+    public static long allocatedBytes () {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled())
+                return counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * This method will read a parameter of the form name=value.
+     * @param args is the list of parameters
+     * @param name is the name of the parameter
+     * @param fallback is the value used when the parameter is missing
+     * @return the value of the parameter
+     */
+    public static String param (String[] args, String name, String fallback) {
+        for (String arg : args)
+            if (arg.startsWith(name + "="))
+                return arg.substring(name.length() + 1);
+        return fallback;
+    }
+
+    /**
+     * This method will read a parameter that is a comma-separated list of numbers.
+     * @param args is the list of parameters
+     * @param name is the name of the parameter
+     * @param fallback is the value used when the parameter is missing
+     * @return the numbers of the parameter
+     */
+    public static int[] intList (String[] args, String name, String fallback) {
+        String[] values = param(args, name, fallback).split(",");
+        int[] numbers = new int[values.length];
+
+        for (int i = 0; i < values.length; i++)
+            numbers[i] = Integer.parseInt(values[i].trim());
+        return numbers;
+    }
+}
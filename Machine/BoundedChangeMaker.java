@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The BoundedChangeMaker class gives change using the fewest coins and bills the reserve can actually pay.
+ * Unlike the greedy approach, it still finds the change when the greatest denomination runs out,
+ * by solving a bounded coin change problem over the quantity held of each denomination.
+ *
+ * When the denominations form a canonical system (one where the greedy choice is always optimal) and
+ * the greedy choice never runs out of a denomination, the greedy result is returned right away,
+ * since it is then known to be the optimal one.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class BoundedChangeMaker implements ChangeMaker {
+    // Declaration of variables
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final long MAX_CANONICAL_CHECK = 1_000_000;
+    private static final int MAX_CACHED_SYSTEMS = 256;
+    private final long maxCells;
+    private final HashMap<UnitSet, Boolean> canonicalSystems = new HashMap<UnitSet, Boolean>();
+
+    /**
+     * Constructs a new BoundedChangeMaker with the default limit on the size of the search table.
+     */
+    public BoundedChangeMaker () {
+        this(4_000_000);
+    }
+
+    /**
+     * Constructs a new BoundedChangeMaker with the given limit on the size of the search table.
+     * Above the limit, the change maker falls back to taking the greatest denominations first.
+     * @param maxCells is the maximum number of table cells (amounts times coin groups) that may be searched
+     */
+    public BoundedChangeMaker (long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    @Override
+    public ChangePlan makeChange (CashHolder reserve, long amount) {
+        if (amount < 0)
+            return null;
+
+        int size = reserve.getDenominationSlots();
+        Denomination[] denominations = new Denomination[size];
+        long[] values = new long[size];
+        int[] counts = new int[size];
+        int[] quantities = new int[size];
+        long unit = 0;
+
+        for (int i = 0; i < size; i++) {
+            denominations[i] = reserve.getDenominationAt(i);
+            values[i] = denominations[i].getCentavos();
+            counts[i] = reserve.getCountAt(i);
+            if (counts[i] > 0)
+                unit = gcd(unit, values[i]);
+        }
+
+        if (amount == 0)
+            return new ChangePlan(denominations, quantities, size);
+        if (unit == 0 || amount % unit != 0)
+            return null;
+
+        for (int i = 0; i < size; i++)
+            values[i] /= unit;
+        long target = amount / unit;
+
+        if (takeGreatest(values, counts, size, target, quantities, true) && isCanonical(values, counts, size))
+            return new ChangePlan(denominations, quantities, size);
+
+        Arrays.fill(quantities, 0);
+        if (search(values, counts, size, target, quantities))
+            return new ChangePlan(denominations, quantities, size);
+        return null;
+    }
+
+    /**
+     * This method will take the greatest denominations first, as many as the remaining amount allows.
+     * @param values is the value of each denomination, in units of their greatest common divisor
+     * @param counts is the quantity held of each denomination
+     * @param size is the number of denominations
+     * @param target is the amount to pay, in the same units as the values
+     * @param quantities receives the quantity taken of each denomination
+     * @param strict is true if running out of a denomination should count as a failure
+     * @return true if the amount was paid exactly, false otherwise
+     */
+    private static boolean takeGreatest (long[] values, int[] counts, int size, long target, int[] quantities, boolean strict) {
+        long remaining = target;
+
+        for (int i = size - 1; i >= 0 && remaining > 0; i--) {
+            if (counts[i] == 0 || values[i] > remaining)
+                continue;
+
+            long wanted = remaining / values[i];
+            if (wanted > counts[i] && strict)
+                return false;
+
+            quantities[i] = (int) Math.min(wanted, counts[i]);
+            remaining -= values[i] * quantities[i];
+        }
+        return remaining == 0;
+    }
+
+    /**
+     * This method will find the change with the fewest pieces by splitting the quantity of each denomination
+     * into groups of 1, 2, 4, ... pieces and choosing which groups to use.
+     * @param values is the value of each denomination, in units of their greatest common divisor
+     * @param counts is the quantity held of each denomination
+     * @param size is the number of denominations
+     * @param target is the amount to pay, in the same units as the values
+     * @param quantities receives the quantity taken of each denomination
+     * @return true if the amount can be paid exactly, false otherwise
+     */
+    private boolean search (long[] values, int[] counts, int size, long target, int[] quantities) {
+        int groups = 0;
+        for (int i = 0; i < size; i++) {
+            int usable = counts[i] == 0 ? 0 : (int) Math.min(counts[i], target / values[i]);
+            for (int take = 1; usable > 0; take <<= 1) {
+                usable -= Math.min(take, usable);
+                groups++;
+            }
+        }
+
+        if (groups == 0 || (target + 1) * groups > maxCells)
+            return takeGreatest(values, counts, size, target, quantities, false);
+
+        int amount = (int) target;
+        int[] groupDenomination = new int[groups];
+        int[] groupPieces = new int[groups];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            int usable = counts[i] == 0 ? 0 : (int) Math.min(counts[i], target / values[i]);
+            for (int take = 1; usable > 0; take <<= 1) {
+                groupDenomination[next] = i;
+                groupPieces[next] = Math.min(take, usable);
+                usable -= groupPieces[next];
+                next++;
+            }
+        }
+
+        int[] fewest = new int[amount + 1];
+        Arrays.fill(fewest, INFINITY);
+        fewest[0] = 0;
+        int words = (amount >> 6) + 1;
+        long[] used = new long[groups * words];
+
+        for (int g = 0; g < groups; g++) {
+            int weight = (int) (values[groupDenomination[g]] * groupPieces[g]);
+            for (int a = amount; a >= weight; a--) {
+                int candidate = fewest[a - weight] + groupPieces[g];
+                if (candidate < fewest[a]) {
+                    fewest[a] = candidate;
+                    used[g * words + (a >> 6)] |= 1L << a;
+                }
+            }
+        }
+
+        if (fewest[amount] >= INFINITY)
+            return false;
+
+        for (int g = groups - 1, a = amount; g >= 0 && a > 0; g--) {
+            if ((used[g * words + (a >> 6)] & (1L << a)) != 0) {
+                quantities[groupDenomination[g]] += groupPieces[g];
+                a -= (int) (values[groupDenomination[g]] * groupPieces[g]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method will check if the greedy choice is always optimal for the denominations that are held.
+     * The result is remembered for each set of held denominations.
+     * @param values is the value of each denomination, in units of their greatest common divisor
+     * @param counts is the quantity held of each denomination
+     * @param size is the number of denominations
+     * @return true if the held denominations form a canonical system, false otherwise
+     */
+    private boolean isCanonical (long[] values, int[] counts, int size) {
+        int held = 0;
+        for (int i = 0; i < size; i++)
+            if (counts[i] > 0)
+                held++;
+
+        long[] units = new long[held];
+        for (int i = 0, next = 0; i < size; i++)
+            if (counts[i] > 0)
+                units[next++] = values[i];
+
+        UnitSet key = new UnitSet(units);
+        Boolean canonical = canonicalSystems.get(key);
+
+        if (canonical == null) {
+            if (canonicalSystems.size() >= MAX_CACHED_SYSTEMS)
+                canonicalSystems.clear();
+            canonical = checkCanonical(units);
+            canonicalSystems.put(key, canonical);
+        }
+        return canonical;
+    }
+
+    /**
+     * This method will compare the greedy and the optimal number of pieces for every amount below the sum of
+     * the two greatest denominations, which is where the smallest counterexample would be (Kozen and Zaks).
+     * @param units is the value of each denomination in ascending order
+     * @return true if no counterexample exists, false otherwise
+     */
+    private static boolean checkCanonical (long[] units) {
+        if (units.length == 0 || units[0] != 1)
+            return false;
+        if (units.length <= 2)
+            return true;
+
+        long limit = units[units.length - 1] + units[units.length - 2];
+        if (limit > MAX_CANONICAL_CHECK)
+            return false;
+
+        int[] optimal = new int[(int) limit];
+        for (int x = 1; x < limit; x++) {
+            int best = INFINITY;
+            for (long unit : units)
+                if (unit <= x)
+                    best = Math.min(best, optimal[(int) (x - unit)] + 1);
+            optimal[x] = best;
+
+            long remaining = x;
+            int greedy = 0;
+            for (int i = units.length - 1; i >= 0; i--) {
+                greedy += remaining / units[i];
+                remaining %= units[i];
+            }
+            if (greedy > best)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method will compute the greatest common divisor of two values.
+     * @param first is the first value
+     * @param second is the second value
+     * @return the greatest common divisor of both values
+     */
+    private static long gcd (long first, long second) {
+        while (second != 0) {
+            long temp = first % second;
+            first = second;
+            second = temp;
+        }
+        return first;
+    }
+
+    /**
+     * The UnitSet class is the key used to remember which sets of denominations are canonical.
+     */
+    private static final class UnitSet {
+        private final long[] units;
+        private final int hash;
+
+        UnitSet (long[] units) {
+            this.units = units;
+            this.hash = Arrays.hashCode(units);
+        }
+
+        @Override
+        public int hashCode () {
+            return hash;
+        }
+
+        @Override
+        public boolean equals (Object other) {
+            return other instanceof UnitSet && Arrays.equals(units, ((UnitSet) other).units);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+
+/**
+ * The Cart class represents a selection of regular and compound items that a customer wants to buy
+ * together, so that they can be paid for and given change in a single checkout.
+ *
+ * Each line of the cart holds a slot number and the number of units to buy from that slot.
+ * Adding the same slot number again increases the quantity of its line.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class Cart {
+    // Declaration of variables
+    private ArrayList<Integer> slotNumbers = new ArrayList<Integer>();
+    private ArrayList<Integer> quantities = new ArrayList<Integer>();
+
+    /**
+     * This method will add units of the item in a slot to the cart.
+     * @param slotNumber is the number of the regular or compound slot
+     * @param quantity is the number of units to add
+     * @return true if the units were added, false if the quantity is not positive
+     */
+    public boolean add (int slotNumber, int quantity) {
+        if (quantity <= 0)
+            return false;
+
+        int index = slotNumbers.indexOf(slotNumber);
+
+        if (index < 0) {
+            slotNumbers.add(slotNumber);
+            quantities.add(quantity);
+        }
+        else {
+            quantities.set(index, Math.addExact(quantities.get(index), quantity));
+        }
+        return true;
+    }
+
+    /**
+     * This method will remove the line of a slot from the cart.
+     * @param slotNumber is the number of the slot to remove
+     * @return true if the slot was in the cart, false otherwise
+     */
+    public boolean remove (int slotNumber) {
+        int index = slotNumbers.indexOf(slotNumber);
+
+        if (index < 0)
+            return false;
+
+        slotNumbers.remove(index);
+        quantities.remove(index);
+        return true;
+    }
+
+    /**
+     * This method will remove every line from the cart.
+     */
+    public void clear () {
+        slotNumbers.clear();
+        quantities.clear();
+    }
+
+    /**
+     * This method will retrieve the number of lines in the cart.
+     * @return the number of different slots in the cart
+     */
+    public int size () {
+        return slotNumbers.size();
+    }
+
+    /**
+     * This method will check if the cart has no lines.
+     * @return true if the cart is empty, false otherwise
+     */
+    public boolean isEmpty () {
+        return slotNumbers.isEmpty();
+    }
+
+    /**
+     * This method will retrieve the slot number of a line.
+     * @param index is the position of the line
+     * @return the slot number of that line
+     */
+    public int getSlotNumber (int index) {
+        return slotNumbers.get(index);
+    }
+
+    /**
+     * This method will retrieve the number of units of a line.
+     * @param index is the position of the line
+     * @return the quantity of that line
+     */
+    public int getQuantity (int index) {
+        return quantities.get(index);
+    }
+}
@@ -1,17 +1,26 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 /**
  * The CashHolder class represents a holder of cash in a vending machine or cash register.
  * It manages a collection of denominations and provides methods for adding cash, withdrawing cash,
  * transferring money to another cash holder, and performing various operations on the cash holdings.
- * 
+ *
+ * The cash is stored as a count per denomination value instead of one object per coin or bill,
+ * so every operation only depends on the number of different denominations being held.
+ * Values are compared and summed in centavos (see Money).
+ *
  * @author Ampatin, Ian Kenneth J
  * @author Paredes, Bill Jethro P
  */
 
 public class CashHolder {
     // Declaration of variables
-    ArrayList<Denomination> holderDenom = new ArrayList<Denomination>();
+    private static final int INITIAL_CAPACITY = 8;
+    private Denomination[] denominations = new Denomination[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
     private String holder;
+    private ArrayList<CashListener> listeners = new ArrayList<CashListener>();
 
     /**
      * Constructs a new CashHolder object with the specified holder name.
@@ -29,19 +38,67 @@ public class CashHolder {
         return holder;
     }
 
+    /**
+     * This method will register a listener that is told every time the quantity of a denomination changes.
+     * @param listener is the listener to register
+     */
+    public void addListener (CashListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * This method will remove a listener that was registered with addListener.
+     * @param listener is the listener to remove
+     */
+    public void removeListener (CashListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * This method will change the quantity of the denomination at the given position and tell the listeners.
+     * @param index is the position of the denomination
+     * @param count is the new quantity of the denomination
+     */
+    private void setCount (int index, int count) {
+        int previous = counts[index];
+        counts[index] = count;
+
+        for (int i = 0; i < listeners.size(); i++)
+            listeners.get(i).countChanged(this, denominations[index], previous, count);
+    }
+
+    /**
+     * This method will find the position of the denomination with the specified value.
+     * The denominations are kept sorted from the least to the greatest value.
+     * @param value is the value of the denomination to search for, in centavos
+     * @return the index of the denomination if found, otherwise (-(insertion point) - 1)
+     */
+    private int indexOf (long value) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midValue = denominations[mid].getCentavos();
+
+            if (midValue < value)
+                low = mid + 1;
+            else if (midValue > value)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
     /**
      * This method will check if a denomination with the specified value exists in the cash holder.
-     * Returns the index of the denomination if found, otherwise returns -1.
      * @param value is the value of the denomination to search for
-     * @return the index of the denomination if found, -1 otherwise
+     * @return true if at least one denomination of that value is held, false otherwise
      */
     private boolean hasDenomination (double value) {
-        for (int i = 0; i < holderDenom.size(); i++) {
-            if (holderDenom.get(i).getValue() == value) {
-                return true;
-            }
-        }
-        return false;
+        int index = indexOf(Money.fromPesos(value));
+        return index >= 0 && counts[index] > 0;
     }
 
     /**
@@ -52,8 +109,25 @@ public class CashHolder {
      * @param quantity is the quantity of the denomination
      */
     public void addCash (Denomination denomination, int quantity) {
-        for (int i = 0; i < quantity; i++)
-            holderDenom.add(new Denomination(denomination.getValue(), denomination.getDenominationType()));
+        if (quantity <= 0)
+            return;
+
+        int index = indexOf(denomination.getCentavos());
+
+        if (index < 0) {
+            index = -(index + 1);
+
+            if (size == denominations.length) {
+                denominations = Arrays.copyOf(denominations, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            System.arraycopy(denominations, index, denominations, index + 1, size - index);
+            System.arraycopy(counts, index, counts, index + 1, size - index);
+            denominations[index] = Denomination.ofCentavos(denomination.getCentavos(), denomination.getDenominationType());
+            counts[index] = 0;
+            size++;
+        }
+        setCount(index, counts[index] + quantity);
     }
 
     /**
@@ -65,20 +139,22 @@ public class CashHolder {
      */
     public ArrayList<Denomination> withdraw (double value, int quantity) {
         if (this.hasDenomination(value)) {
-            ArrayList<Denomination> withdrawal = new ArrayList<Denomination>();
+            ArrayList<Denomination> withdrawal = new ArrayList<Denomination>(quantity);
 
             if (this.countDenomination(value) >= quantity) {
+                int index = indexOf(Money.fromPesos(value));
                 for (int i = 0; i < quantity; i++) {
-                    withdrawal.add(this.removeDenomination(value));
+                    withdrawal.add(denominations[index]);
                 }
+                setCount(index, counts[index] - quantity);
                 return withdrawal;
             }
             else {
-                System.out.println("ERROR: Insuffience Denominations.");
+                MachineLog.warn("ERROR: Insuffience Denominations.");
                 return null;
             }
         }
-        System.out.println("ERROR: Denomination does not exits.");
+        MachineLog.warn("ERROR: Denomination does not exits.");
         return null;
     }
 
@@ -91,32 +167,30 @@ public class CashHolder {
      * @param quantity is the quantity of the denomination to transfer
      */
     public void transferMoney (CashHolder destination, Denomination denomination, int quantity) {
+        int index = indexOf(denomination.getCentavos());
 
-        if (this.hasDenomination(denomination.getValue())) {
-            if (this.countDenomination(denomination.getValue()) - quantity >= 0) {
-                destination.addCash(denomination, quantity);
-                this.withdraw(denomination.getValue(), quantity);
+        if (index >= 0 && counts[index] > 0) {
+            if (counts[index] - quantity >= 0) {
+                destination.addCash(denominations[index], quantity);
+                setCount(index, counts[index] - quantity);
             }
             else {
-                System.out.println("ERROR: Insufficeint Denominaton.");
+                MachineLog.warn("ERROR: Insufficeint Denominaton.");
             }
         }
     }
 
     /**
      * This method transfers all the cash from the current cash holder to the specified destination cash holder.
-     * Each denomination is transferred one by one until the current cash holder is empty.
+     * Each denomination is transferred with its whole quantity at once.
      * @param destination is the destination cash holder
      */
     public void transferAll (CashHolder destination) {
-        try {
-            while (holderDenom.size() >= 0)
-                for (Denomination denomination : holderDenom)
-                    transferMoney(destination, denomination, this.countDenomination(denomination.getValue()));
-                
-        }
-        catch (Exception e) {
-            System.out.println(e.getMessage());
+        for (int i = 0; i < size; i++) {
+            if (counts[i] > 0) {
+                destination.addCash(denominations[i], counts[i]);
+                setCount(i, 0);
+            }
         }
     }
 
@@ -125,20 +199,11 @@ public class CashHolder {
      * @return the denomination with the least value, or null if no denominations exist
      */
     public Denomination getLeast () {
-        Denomination least;
-        try {
-            least = this.holderDenom.get(0);
+        for (int i = 0; i < size; i++) {
+            if (counts[i] > 0)
+                return denominations[i];
         }
-        catch (NullPointerException ne) {
-            System.out.println(ne);
-            return null;
-        }
-
-        for (Denomination denom : this.holderDenom) {
-            if (denom.getValue() < least.getValue())
-                least = denom;
-        }
-        return least;
+        return null;
     }
 
     /**
@@ -148,28 +213,21 @@ public class CashHolder {
      * or null if no denominations match the criteria
      */
     public Denomination getGreatestDenomination(double value) {
-    Denomination greatest;
-
-    try {
-        greatest = this.holderDenom.get(0);
-    }
-    catch (NullPointerException v) {
-        System.out.println(v);
-        return null;
+        return getGreatestCentavos(Money.fromPesos(value));
     }
 
-    for (int i = 0; i < holderDenom.size(); i++) {
-
-        if (holderDenom.get(i).getValue() <= value)
-            if (holderDenom.size() > 0) 
-                if (holderDenom.get(i).getValue() >= greatest.getValue()) 
-                    greatest = holderDenom.get(i);
-    }
-
-    if (greatest.getValue() > value || greatest == null) 
+    /**
+     * This method retrieves the greatest denomination with a value less than or equal to the specified value in centavos.
+     * @param centavos is the value to compare against, in centavos
+     * @return the greatest denomination with a value less than or equal to the specified value,
+     * or null if no denominations match the criteria
+     */
+    public Denomination getGreatestCentavos(long centavos) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (counts[i] > 0 && denominations[i].getCentavos() <= centavos)
+                return denominations[i];
+        }
         return null;
-
-    return greatest;
     }
 
     /**
@@ -177,12 +235,20 @@ public class CashHolder {
      * @return is the total value of the cash holdings
      */
     public double getTotal () {
-        double total = 0;
+        return Money.toPesos(getTotalCentavos());
+    }
 
-        for (Denomination denom : holderDenom) {
-            total += denom.getValue();
+    /**
+     * This method calculates and returns the total value of the cash holdings in centavos.
+     * @return is the total value of the cash holdings, in centavos
+     */
+    public long getTotalCentavos () {
+        long total = 0;
+
+        for (int i = 0; i < size; i++) {
+            total += denominations[i].getCentavos() * counts[i];
         }
-        
+
         return total;
     }
 
@@ -193,29 +259,33 @@ public class CashHolder {
      */
 
     public int countDenomination (double value) {
-        int count = 0;
+        return countCentavos(Money.fromPesos(value));
+    }
 
-        for (Denomination denom : this.holderDenom) 
-            if (denom.getValue() == value)
-                count++;
+    /**
+     * This method will count the number of denominations whose value in centavos is the given value
+     * @param centavos is the value of the denominations that will be counted, in centavos
+     * @return the count of how many denomination that have the same value are there
+     */
 
-        return count;
+    public int countCentavos (long centavos) {
+        int index = indexOf(centavos);
+        return index >= 0 ? counts[index] : 0;
     }
 
     /**
-     * This method will remove all the denomination that have the same value give by the "value" parameter
-     * @param value is the value of the denominations that will be remove
-     * @return a reference to the removed denomination
+     * This method will remove one denomination that has the same value give by the "value" parameter
+     * @param value is the value of the denomination that will be removed
+     * @return a reference to the removed denomination, or null if there is none
      */
     public Denomination removeDenomination (double value) {
-        Denomination reference = null;
-        for (int i = 0; i < holderDenom.size(); i++) {
-            if (holderDenom.get(i).getValue() == value) {
-                reference = holderDenom.get(i);
-                holderDenom.remove(i);
-            }
-        }
-        return reference;
+        int index = indexOf(Money.fromPesos(value));
+
+        if (index < 0 || counts[index] == 0)
+            return null;
+
+        setCount(index, counts[index] - 1);
+        return denominations[index];
     }
 
     /**
@@ -223,27 +293,56 @@ public class CashHolder {
      * @return and array list containing denominations that have unique values
      */
     public ArrayList<Denomination> getUniqueDenomination() {
-        try {
-            ArrayList<Denomination> uniqueValues = new ArrayList<Denomination>();
-            
-            for (Denomination denomination : holderDenom) {
-                boolean alreadyAdded = false;
-                for (Denomination unique : uniqueValues) {
-                    if (denomination.getValue() == unique.getValue()) {
-                        alreadyAdded = true;
-                        break;
-                    }
-                }
-                if (!alreadyAdded) {
-                    uniqueValues.add(new Denomination(denomination.getValue(), denomination.getDenominationType()));
-                }
-            }
-    
-            return uniqueValues;
-        } catch (Exception e) {
-            System.out.println(e);
-            return null;
+        ArrayList<Denomination> uniqueValues = new ArrayList<Denomination>(size);
+
+        for (int i = 0; i < size; i++) {
+            if (counts[i] > 0)
+                uniqueValues.add(Denomination.ofCentavos(denominations[i].getCentavos(), denominations[i].getDenominationType()));
         }
+
+        return uniqueValues;
     }
-    
+
+    /**
+     * This method will set the quantity held of a denomination, adding the denomination if it is not tracked yet.
+     * It is used to bring a holder back to a quantity read from a snapshot or a journal.
+     * @param denomination is the denomination whose quantity is set
+     * @param count is the new quantity of the denomination
+     */
+    void setCash (Denomination denomination, int count) {
+        int index = indexOf(denomination.getCentavos());
+
+        if (index < 0)
+            addCash(denomination, count);
+        else if (counts[index] != count)
+            setCount(index, Math.max(0, count));
+    }
+
+    /**
+     * This method will retrieve the number of different denominations that the holder keeps track of,
+     * including the ones whose quantity has dropped to zero.
+     * @return the number of tracked denominations
+     */
+    int getDenominationSlots () {
+        return size;
+    }
+
+    /**
+     * This method will retrieve the tracked denomination at the given position, in ascending order of value.
+     * @param index is the position of the denomination
+     * @return the denomination at that position
+     */
+    Denomination getDenominationAt (int index) {
+        return denominations[index];
+    }
+
+    /**
+     * This method will retrieve the quantity of the tracked denomination at the given position.
+     * @param index is the position of the denomination
+     * @return the quantity held of that denomination
+     */
+    int getCountAt (int index) {
+        return counts[index];
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+/**
+ * The CashListener interface provides a contract for classes that need to follow the contents of a CashHolder,
+ * such as indexes that are kept up to date as cash comes in and goes out.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public interface CashListener {
+
+    /**
+     * Called after the quantity held of a denomination has changed.
+     * @param holder is the cash holder whose contents changed
+     * @param denomination is the denomination whose quantity changed
+     * @param previousCount is the quantity before the change
+     * @param newCount is the quantity after the change
+     */
+    public void countChanged (CashHolder holder, Denomination denomination, int previousCount, int newCount);
+}
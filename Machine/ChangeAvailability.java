@@ -0,0 +1,168 @@
+/**
+ * The ChangeAvailability class keeps track of every amount of change that a cash holder can pay,
+ * so that checking one amount takes constant time instead of solving a coin change problem.
+ *
+ * For every amount up to a limit, it keeps the number of ways the held coins and bills can make that amount
+ * (modulo a large prime). An amount can be paid exactly when its number of ways is not zero.
+ * When the quantity of a denomination goes from c1 to c2, the table is multiplied by
+ * (1 - x^((c2 + 1) * v)) and divided by (1 - x^((c1 + 1) * v)), which takes two passes over the table,
+ * so deposits, purchases, change and collections only update the table instead of rebuilding it.
+ *
+ * Amounts are kept in units of the greatest common divisor of the denominations seen so far.
+ * A denomination that is not a multiple of that unit causes a full rebuild with the new unit.
+ *
+ * The table is updated in place, by the thread that changes the cash holder, while other threads check amounts
+ * without holding the lock of the cash holder. Updates and checks are synchronized on the ChangeAvailability
+ * itself, so a check never reads a table that is halfway through an update, and nothing is allocated for it.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class ChangeAvailability implements CashListener {
+    // Declaration of variables
+    private static final long PRIME = (1L << 61) - 1;
+    private final CashHolder holder;
+    private final long limit;
+    private long unit;
+    private long[] ways;
+    private long unpayableStep;
+    private long smallestUnpayable;
+
+    /**
+     * Constructs a new ChangeAvailability that follows the given cash holder.
+     * @param holder is the cash holder whose payable amounts will be tracked
+     * @param limit is the greatest amount of change that will be tracked, in centavos
+     */
+    public ChangeAvailability (CashHolder holder, long limit) {
+        this.holder = holder;
+        this.limit = limit;
+        rebuild();
+        holder.addListener(this);
+    }
+
+    /**
+     * This method will retrieve the greatest amount of change that is tracked.
+     * @return the greatest tracked amount, in centavos
+     */
+    public long getLimit () {
+        return limit;
+    }
+
+    /**
+     * This method will check if the given amount is within the tracked range.
+     * @param amount is the amount of change, in centavos
+     * @return true if canPay gives an answer for the amount, false otherwise
+     */
+    public boolean covers (long amount) {
+        return amount >= 0 && amount <= limit;
+    }
+
+    /**
+     * This method will check if the cash holder can pay the given amount exactly.
+     *
+     * The check is probabilistic: the number of ways is only known modulo the prime 2^61 - 1, so an amount
+     * whose true number of ways is a non-zero multiple of that prime is reported as not payable. The number
+     * of ways would have to reach 2^61 - 1 first, so the answer is only wrong with a negligible chance, and
+     * then only in the safe direction of refusing change that could have been given.
+     * @param amount is the amount of change, in centavos, which must be within the tracked range
+     * @return true if the amount can be paid, false otherwise
+     */
+    public synchronized boolean canPay (long amount) {
+        if (amount == 0)
+            return true;
+        if (amount < 0 || unit == 0 || amount % unit != 0)
+            return false;
+        return ways[(int) (amount / unit)] != 0;
+    }
+
+    /**
+     * This method will find the smallest multiple of the given step that the cash holder cannot pay.
+     * The result is remembered until the contents of the cash holder change.
+     * @param step is the step between the amounts that are checked, in centavos
+     * @return the smallest amount that cannot be paid, or -1 if every tracked amount can be paid
+     */
+    public synchronized long getSmallestUnpayable (long step) {
+        if (unpayableStep != step) {
+            unpayableStep = step;
+            smallestUnpayable = -1;
+            for (long amount = step; amount <= limit; amount += step) {
+                if (!canPay(amount)) {
+                    smallestUnpayable = amount;
+                    break;
+                }
+            }
+        }
+        return smallestUnpayable;
+    }
+
+    @Override
+    public synchronized void countChanged (CashHolder source, Denomination denomination, int previousCount, int newCount) {
+        long value = denomination.getCentavos();
+        unpayableStep = 0;
+
+        if (unit == 0 || value % unit != 0) {
+            rebuild();
+            return;
+        }
+
+        long size = value / unit;
+        divide(size * ((long) previousCount + 1));
+        multiply(size * ((long) newCount + 1));
+    }
+
+    /**
+     * This method will rebuild the whole table from the current contents of the cash holder.
+     */
+    private synchronized void rebuild () {
+        unit = 0;
+        for (int i = 0; i < holder.getDenominationSlots(); i++)
+            unit = gcd(unit, holder.getDenominationAt(i).getCentavos());
+
+        ways = new long[unit == 0 ? 1 : (int) (limit / unit) + 1];
+        ways[0] = 1;
+
+        for (int i = 0; i < holder.getDenominationSlots(); i++) {
+            long size = holder.getDenominationAt(i).getCentavos() / unit;
+            divide(size);
+            multiply(size * ((long) holder.getCountAt(i) + 1));
+        }
+    }
+
+    /**
+     * This method will multiply the table by (1 - x^power).
+     * @param power is the power of x, in units
+     */
+    private void multiply (long power) {
+        for (int a = ways.length - 1; a >= power; a--) {
+            long difference = ways[a] - ways[a - (int) power];
+            ways[a] = difference < 0 ? difference + PRIME : difference;
+        }
+    }
+
+    /**
+     * This method will divide the table by (1 - x^power).
+     * @param power is the power of x, in units
+     */
+    private void divide (long power) {
+        for (int a = (int) Math.min(power, ways.length); a < ways.length; a++) {
+            long sum = ways[a] + ways[a - (int) power];
+            ways[a] = sum >= PRIME ? sum - PRIME : sum;
+        }
+    }
+
+    /**
+     * This method will compute the greatest common divisor of two values.
+     * @param first is the first value
+     * @param second is the second value
+     * @return the greatest common divisor of both values
+     */
+    private static long gcd (long first, long second) {
+        while (second != 0) {
+            long temp = first % second;
+            first = second;
+            second = temp;
+        }
+        return first;
+    }
+}
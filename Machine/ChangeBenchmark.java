@@ -0,0 +1,83 @@
+import java.util.Random;
+
+/**
+ * The ChangeBenchmark class compares the change makers of the vending machine.
+ * It fills reserves with random quantities of the usual peso denominations, asks each change maker for
+ * random amounts of change, and prints how many requests each one accepted and how long they took on average.
+ *
+ * Usage: java ChangeBenchmark [trials] [seed]
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class ChangeBenchmark {
+    // Declaration of constants
+    private static final double[] COINS = {0.25, 1, 5, 10, 20};
+    private static final double[] BILLS = {20, 50, 100, 200, 500, 1000};
+
+    /**
+     * Runs the benchmark.
+     * @param args is the optional number of trials and random seed
+     */
+    public static void main (String[] args) {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        ChangeMaker[] makers = {new GreedyChangeMaker(), new BoundedChangeMaker()};
+        String[] names = {"greedy (original)", "bounded"};
+
+        CashHolder[] reserves = new CashHolder[64];
+        long[] amounts = new long[1024];
+        Random random = new Random(seed);
+
+        for (int i = 0; i < reserves.length; i++) {
+            reserves[i] = new CashHolder("Reserve " + i);
+            for (double coin : COINS)
+                reserves[i].addCash(new Denomination(coin, "Coin"), random.nextInt(12));
+            for (double bill : BILLS)
+                reserves[i].addCash(new Denomination(bill, "Bill"), random.nextInt(4));
+        }
+        for (int i = 0; i < amounts.length; i++)
+            amounts[i] = 25 * (1 + random.nextInt(4 * 500));
+
+        // Warm up both change makers before timing them
+        for (ChangeMaker maker : makers)
+            run(maker, reserves, amounts, trials / 4);
+
+        System.out.println("changeMaker,trials,accepted,acceptanceRate,nsPerOp");
+        for (int m = 0; m < makers.length; m++) {
+            long start = System.nanoTime();
+            int accepted = run(makers[m], reserves, amounts, trials);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println(names[m] + "," + trials + "," + accepted + ","
+                + String.format("%.4f", (double) accepted / trials) + "," + (elapsed / trials));
+        }
+    }
+
+    /**
+     * This method will ask the change maker for change a number of times and check every plan it returns.
+     * @param maker is the change maker to run
+     * @param reserves is the list of reserves to use in turn
+     * @param amounts is the list of amounts to use in turn
+     * @param trials is the number of requests
+     * @return the number of requests that were accepted
+     */
+    private static int run (ChangeMaker maker, CashHolder[] reserves, long[] amounts, int trials) {
+        int accepted = 0;
+
+        for (int t = 0; t < trials; t++) {
+            CashHolder reserve = reserves[t % reserves.length];
+            long amount = amounts[t % amounts.length];
+            ChangePlan plan = maker.makeChange(reserve, amount);
+
+            if (plan != null) {
+                if (plan.getTotalCentavos() != amount || !plan.isPayableFrom(reserve))
+                    throw new IllegalStateException("Invalid change plan for " + Money.format(amount));
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * The ChangeMaker interface provides a contract for the algorithms that decide which coins and bills
+ * a vending machine gives back as change.
+ * Implementations only read the quantities held by the reserve; they never move any money.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public interface ChangeMaker {
+
+    /**
+     * Computes the change for the given amount using only what the reserve currently holds.
+     * @param reserve is the cash holder that would pay the change
+     * @param amount is the amount of change to give, in centavos
+     * @return the plan for the change, or null if the reserve cannot pay the exact amount
+     */
+    public ChangePlan makeChange (CashHolder reserve, long amount);
+}
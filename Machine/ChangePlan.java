@@ -0,0 +1,111 @@
+/**
+ * The ChangePlan class represents the coins and bills that make up the change for one purchase.
+ * It lists each denomination together with how many of it will be given, and the total of the change.
+ * A plan is produced by a ChangeMaker and can be paid out of a cash holder once it has been accepted.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class ChangePlan {
+    // Declaration of variables
+    private final Denomination[] denominations;
+    private final int[] quantities;
+    private final long total;
+
+    /**
+     * Constructs a new ChangePlan with the given denominations and quantities.
+     * Denominations with a quantity of zero are left out of the plan.
+     * @param denominations is the list of denominations that may be used
+     * @param quantities is the quantity of each denomination that will be given
+     * @param size is the number of entries of both arrays that are used
+     */
+    ChangePlan (Denomination[] denominations, int[] quantities, int size) {
+        int used = 0;
+        for (int i = 0; i < size; i++)
+            if (quantities[i] > 0)
+                used++;
+
+        this.denominations = new Denomination[used];
+        this.quantities = new int[used];
+
+        long sum = 0;
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (quantities[i] > 0) {
+                this.denominations[next] = denominations[i];
+                this.quantities[next] = quantities[i];
+                sum += denominations[i].getCentavos() * quantities[i];
+                next++;
+            }
+        }
+        this.total = sum;
+    }
+
+    /**
+     * This method will retrieve the number of different denominations in the plan.
+     * @return the number of denominations in the plan
+     */
+    public int size () {
+        return denominations.length;
+    }
+
+    /**
+     * This method will retrieve the denomination at the given position of the plan.
+     * @param index is the position in the plan
+     * @return the denomination at that position
+     */
+    public Denomination getDenomination (int index) {
+        return denominations[index];
+    }
+
+    /**
+     * This method will retrieve how many of the denomination at the given position will be given.
+     * @param index is the position in the plan
+     * @return the quantity of the denomination at that position
+     */
+    public int getQuantity (int index) {
+        return quantities[index];
+    }
+
+    /**
+     * This method will retrieve the total number of coins and bills in the plan.
+     * @return the number of coins and bills in the plan
+     */
+    public int getPieceCount () {
+        int count = 0;
+        for (int quantity : quantities)
+            count += quantity;
+        return count;
+    }
+
+    /**
+     * This method will retrieve the total value of the change in the plan.
+     * @return the total value of the change, in centavos
+     */
+    public long getTotalCentavos () {
+        return total;
+    }
+
+    /**
+     * This method will check if the given cash holder still has every denomination the plan needs.
+     * @param source is the cash holder that will pay the change
+     * @return true if the source can pay the plan, false otherwise
+     */
+    public boolean isPayableFrom (CashHolder source) {
+        for (int i = 0; i < denominations.length; i++)
+            if (source.countCentavos(denominations[i].getCentavos()) < quantities[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * This method will move the change in the plan from the source to the destination.
+     * @param source is the cash holder that pays the change
+     * @param destination is the cash holder that receives the change
+     */
+    public void payOut (CashHolder source, CashHolder destination) {
+        for (int i = 0; i < denominations.length; i++)
+            source.transferMoney(destination, denominations[i], quantities[i]);
+    }
+}
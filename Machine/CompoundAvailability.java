@@ -0,0 +1,122 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The CompoundAvailability class keeps the available quantity of every compound item up to date,
+ * so that reading it takes constant time instead of going over all of its required items.
+ *
+ * It keeps an index from each ingredient slot to the compound slots that need it. When the quantity
+ * of an ingredient slot changes, only the compound slots that depend on it are computed again,
+ * using their compiled recipes.
+ *
+ * Stock changes run under the lock of their slot, so they never take a lock here. The index is only changed
+ * by track, which copies it and publishes the copy, so a stock change reads it without locking. A compound slot
+ * is computed from the volatile quantities of its ingredient slots, and computed again after it is stored
+ * until the result holds, so two updates that race never leave an older result behind.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class CompoundAvailability implements SlotListener {
+    // Declaration of variables
+    private volatile HashMap<Slot, CompoundSlot[]> dependents = new HashMap<Slot, CompoundSlot[]>();
+    private final Object indexLock = new Object();
+
+    /**
+     * This method will move a compound slot from the ingredient slots of its previous recipe to the
+     * ingredient slots of its current compiled recipe, then compute its available quantity.
+     * @param compound is the compound slot whose recipe was compiled
+     * @param previous is the ingredient slots of the previous compiled recipe, or null if there was none
+     */
+    public void track (CompoundSlot compound, Slot[] previous) {
+        synchronized (indexLock) {
+            HashMap<Slot, CompoundSlot[]> index = new HashMap<Slot, CompoundSlot[]>(dependents);
+
+            if (previous != null)
+                for (Slot ingredient : previous)
+                    index.computeIfPresent(ingredient, (slot, list) -> without(list, compound));
+
+            for (Slot ingredient : compound.getIngredientSlots()) {
+                CompoundSlot[] list = index.get(ingredient);
+
+                if (list == null)
+                    index.put(ingredient, new CompoundSlot[] {compound});
+                else if (!Arrays.asList(list).contains(compound)) {
+                    list = Arrays.copyOf(list, list.length + 1);
+                    list[list.length - 1] = compound;
+                    index.put(ingredient, list);
+                }
+            }
+            dependents = index;
+
+            for (Slot ingredient : compound.getIngredientSlots())
+                ingredient.addListener(this);
+        }
+
+        refresh(compound);
+    }
+
+    /**
+     * This method will remove a compound slot from a list of dependents.
+     * @param list is the list of dependents
+     * @param compound is the compound slot to remove
+     * @return the list without the compound slot, which is the same list if it was not in it
+     */
+    private static CompoundSlot[] without (CompoundSlot[] list, CompoundSlot compound) {
+        int index = Arrays.asList(list).indexOf(compound);
+
+        if (index < 0)
+            return list;
+
+        CompoundSlot[] smaller = new CompoundSlot[list.length - 1];
+        System.arraycopy(list, 0, smaller, 0, index);
+        System.arraycopy(list, index + 1, smaller, index, smaller.length - index);
+        return smaller;
+    }
+
+    /**
+     * This method will compute the available quantity of a compound slot from its compiled recipe.
+     * @param compound is the compound slot to compute
+     */
+    public void refresh (CompoundSlot compound) {
+        int quantity = compute(compound);
+
+        compound.setAvailableQuantity(quantity);
+
+        // Another update may have stored a result computed from older stock in the meantime
+        for (int again = compute(compound); again != quantity; again = compute(compound)) {
+            quantity = again;
+            compound.setAvailableQuantity(quantity);
+        }
+    }
+
+    /**
+     * This method will compute how many units of a compound item the current stock of its ingredients can make.
+     * @param compound is the compound slot to compute
+     * @return the available quantity
+     */
+    private static int compute (CompoundSlot compound) {
+        Slot[] ingredients = compound.getIngredientSlots();
+        int[] quantities = compound.getIngredientQuantities();
+        int quantity = Integer.MAX_VALUE;
+
+        if (!compound.isCompiledValid() || ingredients == null || quantities == null)
+            return 0;
+
+        for (int i = 0; i < ingredients.length; i++)
+            quantity = Math.min(quantity, ingredients[i].getQuantity() / quantities[i]);
+        return quantity;
+    }
+
+    @Override
+    public void quantityChanged (Slot slot, int previousQuantity, int newQuantity) {
+        CompoundSlot[] list = dependents.get(slot);
+
+        if (list == null)
+            return;
+
+        for (CompoundSlot compound : list)
+            refresh(compound);
+    }
+}
@@ -5,6 +5,8 @@ import java.util.ArrayList;
  * It extends the Slot class and includes additional functionality to store required items for the compound item.
  * CompoundSlot maintains a list of required items along with the quantity required for each item.
  * It provides methods to add required items to the compound slot and retrieve the list of required items.
+ * The vending machine compiles the list into the slots that hold each required item, and the compiled
+ * recipe is kept until the list or the slot layout of the machine changes.
  * This class is part of the vending machine system.
  * 
  * @author Ampatin, Ian Kenneth J
@@ -14,6 +16,13 @@ import java.util.ArrayList;
 public class CompoundSlot extends Slot {
     //Declaration of Variables
     private ArrayList<RequiredItem> requiredItems;
+    private int recipeVersion;
+    private int compiledRecipe = -1;
+    private int compiledLayout = -1;
+    private Slot[] ingredientSlots;
+    private int[] ingredientQuantities;
+    private boolean compiledValid;
+    private volatile int availableQuantity;
 
     /**
      * Constructs a new CompoundSlot object with the specified slot number and item.
@@ -55,14 +64,18 @@ public class CompoundSlot extends Slot {
      * It updates the calories and price of the compound item based on the added required item.
      * @param item the required item to be added
      * @param quantity the quantity of the required item to be added
+     * @return the required item that was added
      */
     
-    public void addRequiredItem (Item item, int quantity) {
+    public RequiredItem addRequiredItem (Item item, int quantity) {
         Item reference;
-        requiredItems.add(new RequiredItem(item, quantity));
+        RequiredItem required = new RequiredItem(item, quantity);
+        requiredItems.add(required);
+        recipeVersion++;
         reference = this.getItem();
         reference.setCalories(reference.getCalories() + (item.getCalories() * quantity));
-        reference.setPrice(reference.getPrice() + (item.getPrice() * quantity));
+        reference.setPriceCentavos(Money.add(reference.getPriceCentavos(), Money.multiply(item.getPriceCentavos(), quantity)));
+        return required;
     }
 
     /**
@@ -72,5 +85,70 @@ public class CompoundSlot extends Slot {
     public ArrayList<RequiredItem> getRequiredItems() {
         return requiredItems;
     }
+
+    /**
+     * Checks if the compiled recipe is still up to date for the given slot layout.
+     * @param layoutVersion the current slot layout version of the vending machine
+     * @return true if the recipe does not need to be compiled again, false otherwise
+     */
+    boolean isCompiled(int layoutVersion) {
+        return compiledRecipe == recipeVersion && compiledLayout == layoutVersion;
+    }
+
+    /**
+     * Stores the compiled recipe of the compound slot.
+     * @param slots the slot holding each required item
+     * @param quantities the quantity needed from each of those slots
+     * @param valid true if every required item was found, false otherwise
+     * @param layoutVersion the slot layout version of the vending machine the recipe was compiled against
+     */
+    void setCompiled(Slot[] slots, int[] quantities, boolean valid, int layoutVersion) {
+        ingredientSlots = slots;
+        ingredientQuantities = quantities;
+        compiledValid = valid;
+        compiledRecipe = recipeVersion;
+        compiledLayout = layoutVersion;
+    }
+
+    /**
+     * Retrieves the slots holding the required items, as of the last compilation.
+     * @return the slot holding each required item
+     */
+    Slot[] getIngredientSlots() {
+        return ingredientSlots;
+    }
+
+    /**
+     * Retrieves the quantity needed from each ingredient slot, as of the last compilation.
+     * @return the quantity needed from each ingredient slot
+     */
+    int[] getIngredientQuantities() {
+        return ingredientQuantities;
+    }
+
+    /**
+     * Retrieves the number of compound items that can be made from the current stock of its required items,
+     * as last computed by the vending machine.
+     * @return the available quantity of the compound item
+     */
+    int getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    /**
+     * Stores the number of compound items that can be made from the current stock of its required items.
+     * @param availableQuantity the available quantity of the compound item
+     */
+    void setAvailableQuantity(int availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+
+    /**
+     * Checks if every required item was found by the last compilation.
+     * @return true if the compiled recipe can be used, false otherwise
+     */
+    boolean isCompiledValid() {
+        return compiledValid;
+    }
     
 }
\ No newline at end of file
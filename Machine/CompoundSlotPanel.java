@@ -158,7 +158,8 @@ public class CompoundSlotPanel extends JPanel implements ActionListener, MouseLi
      * Handles the mouse entered event for the panel and the "Select" button.
      * When the mouse enters the panel, the method checks the compound slot's quantity. If the
      * quantity is greater than 0, the "Select" button is enabled, and the item label is set to the
-     * compound slot's item name. Otherwise, the "Select" button is disabled, and the item label
+     * compound slot's item name, unless the machine cannot give the change for it, in which case the
+     * item label displays "Exact Change Only". Otherwise, the "Select" button is disabled, and the item label
      * displays "Compound Unavailable". The method then revalidates the GUI frame to update the
      * display.
      * @param e the mouse event for the select button and the paenl
@@ -167,11 +168,15 @@ public class CompoundSlotPanel extends JPanel implements ActionListener, MouseLi
     @Override
     public void mouseEntered(MouseEvent e) {
         if(e.getSource() == GUI_Frame) {
+            itemSlot.setQuantity(GUI_Frame.getSelected().computeCompoundQuantity(itemSlot));
 
-            if (itemSlot.getQuantity() > 0) {
+            if (itemSlot.getQuantity() > 0 && vendingMachine != null && !vendingMachine.isChangeAvailable(itemSlot.getItem().getPriceCentavos())) {
+                selectButton.setEnabled(false);
+                itemLabel.setText("Exact Change Only");
+            }
+            else if (itemSlot.getQuantity() > 0) {
                 selectButton.setEnabled(true);
                 itemLabel.setText(itemSlot.getItem().getName());
-                itemSlot.setQuantity(GUI_Frame.getSelected().computeCompoundQuantity(itemSlot));
             }
             else {
                 selectButton.setEnabled(false);
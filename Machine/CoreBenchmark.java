@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The CoreBenchmark class measures the main operations of the vending machine with BenchmarkHarness:
+ * regular and compound purchases, compound availability, change checks and payouts, the cash holder
+ * operations, filling a machine with insertInEmpty and building the sales report.
+ *
+ * Every benchmark runs once for every combination of the parameters, like the parameters of a JMH
+ * benchmark. Each parameter takes a comma-separated list of values:
+ * slots (number of regular slots, 8 to 29), stock (units per slot, 10 to 50), reserve (coins of each
+ * kind in the machine reserve) and recipe (number of ingredients of the compound item).
+ * The results are printed as CSV with the time, throughput and bytes allocated per operation.
+ *
+ * Usage: java CoreBenchmark [slots=8,29] [stock=10,50] [reserve=20,500] [recipe=2,6]
+ *                           [warmup=5] [rounds=5] [ops=20000] [only=name,...]
+ *
+ * The same operations run under JMH through vending.CoreJmhBenchmark, which the Maven build packages
+ * into target/benchmarks.jar.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class CoreBenchmark {
+    // Declaration of constants
+    private static final double[] COINS = {0.25, 1, 5, 10, 20};
+    private static final double[] BILLS = {20, 50, 100};
+    private static final Denomination PAYMENT = new Denomination(100, "Bill");
+    private static final String[] BENCHMARKS = {"buyRegularItem", "buyCompoundItem", "computeCompoundQuantity",
+        "compoundStockChange", "hasChange", "giveChange", "transferAll", "getTotal", "countDenomination",
+        "insertInEmpty", "salesReport"};
+
+    /**
+     * Runs the benchmarks.
+     * @param args is the optional list of parameters, written as name=value,value
+     */
+    public static void main (String[] args) {
+        int[] slots = BenchmarkHarness.intList(args, "slots", "8,29");
+        int[] stocks = BenchmarkHarness.intList(args, "stock", "10,50");
+        int[] reserves = BenchmarkHarness.intList(args, "reserve", "20,500");
+        int[] recipes = BenchmarkHarness.intList(args, "recipe", "2,6");
+        int warmup = BenchmarkHarness.intList(args, "warmup", "5")[0];
+        int rounds = BenchmarkHarness.intList(args, "rounds", "5")[0];
+        int ops = BenchmarkHarness.intList(args, "ops", "20000")[0];
+        String only = BenchmarkHarness.param(args, "only", "");
+        ArrayList<String> selected = new ArrayList<String>(Arrays.asList(only.isEmpty() ? BENCHMARKS : only.split(",")));
+
+        MachineLog.setLevel(LogLevel.OFF);
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, rounds, ops);
+
+        System.out.println("benchmark,slots,stock,reserve,recipe,operations,nsPerOp,opsPerSec,bytesPerOp");
+        for (String benchmark : selected)
+            for (int slot : slots)
+                for (int stock : stocks)
+                    for (int reserve : reserves)
+                        for (int recipe : recipes) {
+                            if (recipe > slot)
+                                continue;
+
+                            BenchmarkHarness.Result result = harness.measure(operation(benchmark, slot, stock, reserve, recipe));
+                            System.out.println(benchmark + "," + slot + "," + stock + "," + reserve + "," + recipe + ","
+                                + result.getOperations() + "," + String.format("%.1f", result.getNsPerOp()) + ","
+                                + String.format("%.0f", result.getOpsPerSecond()) + ","
+                                + String.format("%.1f", result.getBytesPerOp()));
+                        }
+    }
+
+    /**
+     * This method will build the operation of a benchmark on a new machine, with logging turned off.
+     * It is public for the JMH suite, which cannot be in the default package and reaches it by reflection.
+     * @param benchmark is the name of the benchmark
+     * @param slots is the number of regular slots
+     * @param stock is the number of units in each slot
+     * @param reserve is the number of coins of each kind in the machine reserve
+     * @param recipe is the number of ingredients of the compound item
+     * @return the operation to measure
+     */
+    public static BenchmarkHarness.Operation newOperation (String benchmark, int slots, int stock, int reserve, int recipe) {
+        MachineLog.setLevel(LogLevel.OFF);
+        return operation(benchmark, slots, stock, reserve, recipe);
+    }
+
+    /**
+     * This method will build the operation of a benchmark on a new machine.
+     * @param benchmark is the name of the benchmark
+     * @param slots is the number of regular slots
+     * @param stock is the number of units in each slot
+     * @param reserve is the number of coins of each kind in the machine reserve
+     * @param recipe is the number of ingredients of the compound item
+     * @return the operation to measure
+     */
+    private static BenchmarkHarness.Operation operation (String benchmark, int slots, int stock, int reserve, int recipe) {
+        SpecialVendingMachine machine = build(slots, stock, reserve, recipe);
+        CompoundSlot compound = machine.getCompoundItem("Combo");
+        CashHolder customer = new CashHolder("Customer");
+        CashHolder machineReserve = machine.getMachineReserve();
+
+        switch (benchmark) {
+            case "buyRegularItem":
+                return i -> {
+                    int number = 1 + (int) (i % slots);
+                    Slot slot = machine.getSlot(number);
+
+                    if (slot.getQuantity() == 0)
+                        slot.setQuantity(stock);
+                    machine.acceptMoney(PAYMENT, 1);
+
+                    PurchaseResult result = machine.purchase(number, 1, customer);
+                    if (!result.isSuccessful())
+                        machine.cancelTransaction(customer);
+                    if ((i & 63) == 0)
+                        customer.transferAll(machineReserve);
+                    return result.getChangeCentavos();
+                };
+            case "buyCompoundItem":
+                return i -> {
+                    if (machine.computeCompoundQuantity(compound) == 0)
+                        restock(machine, recipe, stock);
+                    machine.acceptMoney(PAYMENT, 1);
+
+                    PurchaseResult result = machine.purchaseCompound(compound.getSlotNum(), 1, customer);
+                    if (!result.isSuccessful())
+                        machine.cancelTransaction(customer);
+                    if ((i & 63) == 0)
+                        customer.transferAll(machineReserve);
+                    return result.getChangeCentavos();
+                };
+            case "computeCompoundQuantity":
+                return i -> machine.computeCompoundQuantity(compound);
+            case "compoundStockChange":
+                return i -> {
+                    Slot slot = machine.getSlot(1 + (int) (i % recipe));
+
+                    if ((i / recipe & 1) == 0)
+                        slot.deductQuantity(1);
+                    else
+                        slot.addQuantity(1);
+                    return machine.computeCompoundQuantity(compound);
+                };
+            case "hasChange":
+                machine.acceptMoney(PAYMENT, 1);
+                return i -> machine.hasChangeCentavos(25 * (1 + i % 400)) ? 1 : 0;
+            case "giveChange":
+                return i -> {
+                    machine.acceptMoney(PAYMENT, 1);
+                    long change = machine.giveChangeCentavos(customer, 25 * (1 + i % 400));
+                    machine.completePurchase();
+                    if ((i & 63) == 0)
+                        customer.transferAll(machineReserve);
+                    return change;
+                };
+            case "transferAll":
+                CashHolder[] holders = {machineReserve, customer};
+                return i -> {
+                    holders[(int) (i & 1)].transferAll(holders[(int) (~i & 1)]);
+                    return holders[0].getDenominationSlots();
+                };
+            case "getTotal":
+                return i -> machineReserve.getTotalCentavos();
+            case "countDenomination":
+                return i -> machineReserve.countDenomination(COINS[(int) (i % COINS.length)]);
+            case "insertInEmpty":
+                return i -> build(slots, stock, 0, 0).getCurrentItemCount();
+            case "salesReport":
+                for (int s = 1; s <= slots; s++) {
+                    Slot slot = machine.getSlot(s);
+                    for (int unit = 0; unit < stock; unit++)
+                        machine.getTransactionRecord().addTransaction(slot.getItemId(), slot.getItem().getPriceCentavos());
+                }
+                return i -> DisplaySales.buildReport(machine).length();
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+        }
+    }
+
+    /**
+     * This method will build a machine with one item in every regular slot and a compound item
+     * whose ingredients are the items of the first slots.
+     * @param slots is the number of regular slots
+     * @param stock is the number of units in each slot
+     * @param reserve is the number of coins of each kind in the machine reserve
+     * @param recipe is the number of ingredients of the compound item, or 0 for no compound item
+     * @return the machine
+     */
+    static SpecialVendingMachine build (int slots, int stock, int reserve, int recipe) {
+        return build("Benchmark", slots, stock, reserve, recipe);
+    }
+
+    /**
+     * This method will build a machine with the given name, like build does.
+     * @param name is the name of the machine
+     * @param slots is the number of regular slots
+     * @param stock is the number of units in each slot
+     * @param reserve is the number of coins of each kind in the machine reserve
+     * @param recipe is the number of ingredients of the compound item, or 0 for no compound item
+     * @return the machine
+     */
+    static SpecialVendingMachine build (String name, int slots, int stock, int reserve, int recipe) {
+        SpecialVendingMachine machine = new SpecialVendingMachine(name, slots + 1, 50);
+
+        for (int i = 0; i < slots; i++)
+            machine.insertInEmpty(new Item("Item " + i, 10 + i + 0.25 * (i % 4), 100), stock);
+
+        for (double coin : COINS)
+            machine.depositMachineReserve(new Denomination(coin, "Coin"), reserve);
+        for (double bill : BILLS)
+            machine.depositMachineReserve(new Denomination(bill, "Bill"), reserve / 4);
+
+        if (recipe > 0) {
+            machine.addCompoundItem(new Item("Combo", 0, 0));
+            for (int i = 1; i <= recipe; i++)
+                machine.addRequiredITemToCompound("Combo", new RequiredItem(machine.getSlot(i).getItem(), 1));
+        }
+        return machine;
+    }
+
+    /**
+     * This method will fill the ingredient slots of the compound item back to the given stock.
+     * @param machine is the machine to restock
+     * @param recipe is the number of ingredients of the compound item
+     * @param stock is the number of units in each slot
+     */
+    private static void restock (SpecialVendingMachine machine, int recipe, int stock) {
+        for (int i = 1; i <= recipe; i++)
+            machine.getSlot(i).setQuantity(stock);
+    }
+}
@@ -7,26 +7,54 @@
  */
 public class Denomination {
     // Declaration of variables
-    private final double VALUE;
+    private final long VALUE;
     private final String DENOMINATION_TYPE;
 
 
     /**
      * Constructs a new Denomination object with the provided value and denomination type.
      * The value must be greater than 0, and the denomination type must be either "Bill" or "Coin".
-     * @param value is the value of the denomination
+     * The value in pesos is converted to centavos.
+     * @param value is the value of the denomination in pesos
      * @param denominationType is the denomination type (bill or coin)
      */
     public Denomination (double value, String denominationType) {
-        VALUE = value > 0 ? value : 0;
+        this(denominationType, Money.fromPesos(value));
+    }
+
+    /**
+     * Constructs a new Denomination object with the provided denomination type and value in centavos.
+     * @param denominationType is the denomination type (bill or coin)
+     * @param centavos is the value of the denomination in centavos
+     */
+    private Denomination (String denominationType, long centavos) {
+        VALUE = centavos > 0 ? centavos : 0;
         DENOMINATION_TYPE = (denominationType.contentEquals("Bill") || denominationType.contentEquals("Coin")) ? denominationType : "Bill";
     }
 
+    /**
+     * This method will create a denomination whose value is given in centavos.
+     * @param centavos is the value of the denomination in centavos
+     * @param denominationType is the denomination type (bill or coin)
+     * @return the new denomination
+     */
+    public static Denomination ofCentavos (long centavos, String denominationType) {
+        return new Denomination(denominationType, centavos);
+    }
+
     /**
      * This method will retrieve the value of the denomination.
-     * @return is the value of the denomination
+     * @return is the value of the denomination in pesos
      */
     public double getValue () {
+        return Money.toPesos(VALUE);
+    }
+
+    /**
+     * This method will retrieve the value of the denomination in centavos.
+     * @return is the value of the denomination in centavos
+     */
+    public long getCentavos () {
         return VALUE;
     }
 
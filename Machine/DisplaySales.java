@@ -1,6 +1,5 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
 
 /**
  * The DisplaySales class represents a JFrame that displays the sales report of a selected vending machine.
@@ -58,6 +57,48 @@ public class DisplaySales extends JFrame{
           textArea.setEditable(false);
      }
 
+     /**
+     * Builds the text of the sales report of a vending machine, with the sales since the last restock
+     * and the sales of all time for every item, along with the units sold in the last hour and the amount
+     * earned today. It does not need a window,
+     * so it can also be run without a display.
+     * 
+     * @param machine  the vending machine whose sales will be reported
+     * @return the text of the sales report
+     */
+     public static String buildReport(SpecialVendingMachine machine) {
+          TransactionRecord referenceRecord = machine.getTransactionRecord();
+          StringBuilder message = new StringBuilder("Sales Report\n\n");
+
+          for (Slot slot : machine.getSlots())
+               if (slot.getItem() != null)
+                    appendLine(message, referenceRecord, slot);
+
+          for (CompoundSlot slot : machine.getCompoundSlots())
+               if (slot.getItem() != null)
+                    appendLine(message, referenceRecord, slot);
+
+          return message.toString();
+     }
+
+     /**
+     * Adds the line of one item to the sales report.
+     * 
+     * @param message          the sales report being built
+     * @param referenceRecord  the transaction record of the vending machine
+     * @param slot             the slot of the item
+     */
+     private static void appendLine(StringBuilder message, TransactionRecord referenceRecord, Slot slot) {
+          int itemId = slot.getItemId();
+          message.append("Item: ").append(slot.getItem().getName())
+                 .append(" | Sold: ").append(Money.toPesos(referenceRecord.getTotalCentavos(itemId)))
+                 .append(" | Quantity: ").append(referenceRecord.getQuantitySold(itemId))
+                 .append(" | All Time: ").append(Money.toPesos(referenceRecord.getAllTimeTotalCentavos(itemId)))
+                 .append(" (").append(referenceRecord.getAllTimeQuantitySold(itemId)).append(")")
+                 .append(" | Last Hour: ").append(referenceRecord.getQuantitySoldLastHour(itemId))
+                 .append(" | Today: ").append(Money.toPesos(referenceRecord.getRevenueToday(itemId))).append("\n");
+     }
+
      /**
      * Constructs a new DisplaySales frame with the provided GUI frame.
      * Displays the sales report of the selected vending machine based on its TransactionRecord.
@@ -66,27 +107,7 @@ public class DisplaySales extends JFrame{
      */
      public DisplaySales(GUI GUI_Frame) {
           this();
-          TransactionRecord referenceRecord = GUI_Frame.getSelected().getTransactionRecord();
-          ArrayList<Slot> referenceSlot = GUI_Frame.getSelected().getSlots();
-          ArrayList<CompoundSlot> referenceCompSlot = GUI_Frame.getSelected().getCompoundSlots();
-          
-          String message;
-      
-               message = "Sales Report\n\n";
-
-               for (Slot slot : referenceSlot)
-                    if (slot.getItem() != null) {
-                         double subTotal = referenceRecord.getTotal(slot.getItem().getName());
-                         message += "Item: " + slot.getItem().getName() + " | Sold: " + subTotal + " | Quantity: " + (subTotal / slot.getItem().getPrice()) + "\n";
-                    }
-
-               for (CompoundSlot slot : referenceCompSlot)
-                    if (slot.getItem() != null) {
-                         double subTotal = referenceRecord.getTotal(slot.getItem().getName());
-                         message += "Item: " + slot.getItem().getName() + " | Sold: " + subTotal + " | Quantity: " + (subTotal / slot.getItem().getPrice()) + "\n";
-                    }
-      
-          textArea.setText(message);
+          textArea.setText(buildReport(GUI_Frame.getSelected()));
       
           scrollPanel = new JScrollPane(textArea);
       
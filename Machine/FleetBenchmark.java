@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The FleetBenchmark class compares the two ways of starting up a large fleet of vending machines:
+ * building every SpecialVendingMachine by hand, and mapping a FleetStateFile that already holds the stock,
+ * prices and reserve of every machine. It also measures what the write-through to the mapped file costs
+ * a purchase, and checks that the file follows the machine.
+ *
+ * Usage: java FleetBenchmark [machines=10000] [slots=16] [purchases=200000] [file=fleet.state]
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class FleetBenchmark {
+    // Declaration of constants
+    private static final Denomination BILL = new Denomination(100, "Bill");
+
+    /**
+     * Runs the benchmark.
+     * @param args is the optional list of parameters, written as name=value
+     * @throws IOException if the state file cannot be written or read
+     */
+    public static void main (String[] args) throws IOException {
+        int machines = Integer.parseInt(BenchmarkHarness.param(args, "machines", "10000"));
+        int slots = Integer.parseInt(BenchmarkHarness.param(args, "slots", "16"));
+        int purchases = Integer.parseInt(BenchmarkHarness.param(args, "purchases", "200000"));
+        Path file = Paths.get(BenchmarkHarness.param(args, "file", "fleet.state"));
+
+        MachineLog.setLevel(LogLevel.OFF);
+        System.out.println("phase,machines,millis");
+
+        long start = System.nanoTime();
+        SpecialVendingMachine[] fleet = new SpecialVendingMachine[machines];
+        for (int m = 0; m < machines; m++)
+            fleet[m] = CoreBenchmark.build("Machine " + m, slots, 50, 200, 3);
+        print("rebuild", machines, start);
+
+        start = System.nanoTime();
+        FleetStateFile state = FleetStateFile.create(file, machines);
+        for (int m = 0; m < machines; m++)
+            state.attach(fleet[m]);
+        state.force();
+        print("attach", machines, start);
+
+        start = System.nanoTime();
+        FleetStateFile mapped = FleetStateFile.open(file);
+        print("map", mapped.getMachineCount(), start);
+
+        start = System.nanoTime();
+        long stock = 0;
+        long reserve = 0;
+        for (int m = 0; m < mapped.getMachineCount(); m++) {
+            FleetStateFile.MachineRecord record = mapped.getMachine(m);
+            for (int slot = 1; slot <= record.getNumOfSlots(); slot++)
+                stock += Math.max(0, record.getStock(slot));
+            reserve = Money.add(reserve, record.getReserveTotalCentavos());
+        }
+        print("mapAndScan", mapped.getMachineCount(), start);
+        System.err.println("Fleet stock: " + stock + " units, reserve: " + Money.format(reserve));
+
+        SpecialVendingMachine plain = CoreBenchmark.build(slots, 50, 200, 3);
+        System.out.println("purchase,nsPerOp");
+        System.out.println("plain," + String.format("%.0f", timePurchases(plain, purchases, slots)));
+        System.out.println("writeThrough," + String.format("%.0f", timePurchases(fleet[0], purchases, slots)));
+
+        FleetStateFile.MachineRecord record = FleetStateFile.open(file).find(fleet[0].getName());
+        boolean matches = record.getReserveTotalCentavos() == fleet[0].getMachineReserve().getTotalCentavos();
+        for (Slot slot : fleet[0].getSlots())
+            matches &= slot.getItem() == null || record.getStock(slot.getSlotNum()) == slot.getQuantity();
+        System.out.println("matches," + matches);
+    }
+
+    /**
+     * This method will time a number of purchases paid with a bill, restocking the slots when they run out.
+     * @param machine is the machine
+     * @param purchases is the number of purchases
+     * @param slots is the number of regular slots
+     * @return the average time of a purchase, in nanoseconds
+     */
+    private static double timePurchases (SpecialVendingMachine machine, int purchases, int slots) {
+        CashHolder customer = new CashHolder("Customer");
+        long start = System.nanoTime();
+
+        for (int p = 0; p < purchases; p++) {
+            Slot slot = machine.getSlot(1 + p % slots);
+
+            if (slot.getQuantity() == 0)
+                machine.addItemQuantity(slot.getItem().getName(), slot.getMaximum());
+            machine.acceptMoney(BILL, 1);
+            if (!machine.purchase(slot.getSlotNum(), 1, customer).isSuccessful())
+                machine.cancelTransaction(customer);
+            if ((p & 63) == 0)
+                customer.transferAll(machine.getMachineReserve());
+        }
+        return (System.nanoTime() - start) / (double) purchases;
+    }
+
+    /**
+     * This method will print how long a phase took.
+     * @param phase is the name of the phase
+     * @param machines is the number of machines
+     * @param start is the time the phase started, from System.nanoTime
+     */
+    private static void print (String phase, int machines, long start) {
+        System.out.println(phase + "," + machines + "," + String.format("%.1f", (System.nanoTime() - start) / 1e6));
+    }
+}
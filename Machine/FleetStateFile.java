@@ -0,0 +1,460 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * The FleetStateFile class keeps the hot state of a whole fleet of vending machines in one memory-mapped file
+ * with a fixed layout: the stock of every slot, the price table, and the quantity of every denomination
+ * in the reserve. Opening the file only maps it, so the state of thousands of machines can be read
+ * right away without building a single VendingMachine object.
+ *
+ * A machine is attached to a record of the file with attach. The record then follows the slots and the reserve
+ * of the machine as a SlotListener and a CashListener, so every change in stock or cash is a plain write
+ * to the mapped memory. It also follows the layout of the machine as a LayoutListener: prices are written when
+ * an item is inserted or its price changes, and a slot that is removed or given to a compound item goes back
+ * to a stock of -1. Attaching a machine again does nothing more, and detach stops following it.
+ * The operating system writes the pages back to the file; force makes sure they are on the disk.
+ *
+ * The file starts with a header of HEADER_SIZE bytes: the magic number, the version, the capacity,
+ * the number of machines and the size of a record (ints). Every machine then has a record of RECORD_SIZE bytes:
+ * its name (a short length and up to 62 bytes of UTF-8), the number of slots, the slot maximum
+ * and the number of denominations (ints), the stock of every slot number (ints, -1 when the slot has no
+ * regular item), the price of every slot number (longs, in centavos), and the value (longs, in centavos),
+ * quantity (ints) and kind (bytes, 1 for a bill) of every denomination. Everything is little-endian.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class FleetStateFile {
+    // Declaration of constants
+    public static final int MAGIC = 0x46535650;
+    public static final int VERSION = 1;
+    public static final int MAX_SLOTS = 30;
+    public static final int MAX_DENOMINATIONS = 16;
+    public static final int HEADER_SIZE = 64;
+    private static final int MAX_NAME = 62;
+    private static final int CAPACITY = 8;
+    private static final int COUNT = 12;
+    private static final int SIZE = 16;
+    private static final int NAME = 0;
+    private static final int NUM_SLOTS = 64;
+    private static final int SLOT_MAXIMUM = 68;
+    private static final int DENOMINATIONS = 72;
+    private static final int STOCK = 80;
+    private static final int PRICES = STOCK + 4 * MAX_SLOTS;
+    private static final int VALUES = PRICES + 8 * MAX_SLOTS;
+    private static final int COUNTS = VALUES + 8 * MAX_DENOMINATIONS;
+    private static final int KINDS = COUNTS + 4 * MAX_DENOMINATIONS;
+    public static final int RECORD_SIZE = (KINDS + MAX_DENOMINATIONS + 7) / 8 * 8;
+
+    // Declaration of variables
+    private final MappedByteBuffer map;
+    private final int capacity;
+    private HashMap<String, Integer> indexByName;
+    private IdentityHashMap<VendingMachine, MachineRecord> attached = new IdentityHashMap<VendingMachine, MachineRecord>();
+
+    /**
+     * Constructs a FleetStateFile over a mapped file whose header is already written.
+     * @param map is the mapped file
+     */
+    private FleetStateFile (MappedByteBuffer map) {
+        this.map = map;
+        this.map.order(ByteOrder.LITTLE_ENDIAN);
+        this.capacity = map.getInt(CAPACITY);
+    }
+
+    /**
+     * This method will create a new, empty state file for a fleet, replacing the file if it exists.
+     * @param path is the file
+     * @param capacity is the greatest number of machines the file can hold
+     * @return the mapped state file
+     * @throws IOException if the file cannot be created
+     */
+    public static FleetStateFile create (Path path, int capacity) throws IOException {
+        if (capacity < 0 || HEADER_SIZE + (long) capacity * RECORD_SIZE > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid capacity for a fleet state file: " + capacity);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putInt(CAPACITY, capacity);
+            map.putInt(COUNT, 0);
+            map.putInt(SIZE, RECORD_SIZE);
+            return new FleetStateFile(map);
+        }
+    }
+
+    /**
+     * This method will map an existing state file. Nothing is read until a record is used.
+     * @param path is the file
+     * @return the mapped state file
+     * @throws IOException if the file cannot be mapped or is not a fleet state file
+     */
+    public static FleetStateFile open (Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+                || map.getInt(SIZE) != RECORD_SIZE || channel.size() < HEADER_SIZE + (long) map.getInt(CAPACITY) * RECORD_SIZE)
+                throw new IOException("Not a fleet state file: " + path);
+            return new FleetStateFile(map);
+        }
+    }
+
+    /**
+     * This method will retrieve the greatest number of machines the file can hold.
+     * @return the capacity of the file
+     */
+    public int getCapacity () {
+        return capacity;
+    }
+
+    /**
+     * This method will retrieve the number of machines in the file.
+     * @return the number of machines
+     */
+    public int getMachineCount () {
+        return map.getInt(COUNT);
+    }
+
+    /**
+     * This method will retrieve the record of the machine at the given position.
+     * @param index is the position of the machine, from 0
+     * @return the record of the machine
+     */
+    public MachineRecord getMachine (int index) {
+        if (index < 0 || index >= getMachineCount())
+            throw new IndexOutOfBoundsException("Machine: " + index + ", Machines: " + getMachineCount());
+        return new MachineRecord(map, HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /**
+     * This method will find the record of the machine with the given name.
+     * @param name is the name of the machine
+     * @return the record of the machine, or null if there is none
+     */
+    public synchronized MachineRecord find (String name) {
+        Integer index = names().get(name);
+        return index != null ? getMachine(index) : null;
+    }
+
+    /**
+     * This method will attach a vending machine to its record, which is added if the machine is not in the file yet.
+     * The current stock, prices and reserve of the machine are written to the record, and from then on every change
+     * to the stock, the prices, the layout or the reserve of the machine is written through to the mapped file.
+     * A machine that is already attached keeps its record.
+     * @param machine is the vending machine
+     * @return the record of the machine
+     */
+    public synchronized MachineRecord attach (VendingMachine machine) {
+        MachineRecord record = attached.get(machine);
+
+        if (record != null)
+            return record;
+
+        record = find(machine.getName());
+
+        if (record == null) {
+            int index = getMachineCount();
+            byte[] name = machine.getName().getBytes(StandardCharsets.UTF_8);
+
+            if (index >= capacity)
+                throw new IllegalStateException("The fleet state file is full");
+            if (name.length > MAX_NAME)
+                throw new IllegalArgumentException("Machine name is too long for the fleet state file");
+
+            record = new MachineRecord(map, HEADER_SIZE + index * RECORD_SIZE);
+            map.putShort(record.base + NAME, (short) name.length);
+            map.put(record.base + NAME + 2, name);
+            map.putInt(COUNT, index + 1);
+            names().put(machine.getName(), index);
+        }
+
+        record.write(machine);
+        for (Slot slot : machine.getSlots())
+            slot.addListener(record);
+        machine.getMachineReserve().addListener(record);
+        machine.addLayoutListener(record);
+        attached.put(machine, record);
+        return record;
+    }
+
+    /**
+     * This method will stop writing the changes of a vending machine to its record. The record stays in the file
+     * with the last state written.
+     * @param machine is the vending machine
+     * @return true if the machine was attached
+     */
+    public synchronized boolean detach (VendingMachine machine) {
+        MachineRecord record = attached.remove(machine);
+
+        if (record == null)
+            return false;
+
+        for (Slot slot : machine.getSlots())
+            slot.removeListener(record);
+        machine.getMachineReserve().removeListener(record);
+        machine.removeLayoutListener(record);
+        return true;
+    }
+
+    /**
+     * This method will make sure every change written to the mapped file is on the disk.
+     */
+    public void force () {
+        map.force();
+    }
+
+    /**
+     * This method will retrieve the position of every machine by name, reading the names on first use.
+     * @return the positions of the machines by name
+     */
+    private HashMap<String, Integer> names () {
+        if (indexByName == null) {
+            indexByName = new HashMap<String, Integer>();
+            for (int i = 0; i < getMachineCount(); i++)
+                indexByName.put(getMachine(i).getName(), i);
+        }
+        return indexByName;
+    }
+
+    /**
+     * The MachineRecord class reads and writes the record of one machine directly in the mapped file.
+     */
+    public static final class MachineRecord implements SlotListener, CashListener, LayoutListener {
+        // Declaration of variables
+        private final MappedByteBuffer map;
+        private final int base;
+
+        /**
+         * Constructs a view of the record at the given position of the mapped file.
+         * @param map is the mapped file
+         * @param base is the position of the record
+         */
+        private MachineRecord (MappedByteBuffer map, int base) {
+            this.map = map;
+            this.base = base;
+        }
+
+        /**
+         * This method will retrieve the name of the machine.
+         * @return the name of the machine
+         */
+        public String getName () {
+            byte[] name = new byte[map.getShort(base + NAME)];
+
+            map.get(base + NAME + 2, name);
+            return new String(name, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * This method will retrieve the number of slots of the machine.
+         * @return the number of slots
+         */
+        public int getNumOfSlots () {
+            return map.getInt(base + NUM_SLOTS);
+        }
+
+        /**
+         * This method will retrieve the maximum quantity of items a slot of the machine can hold.
+         * @return the slot maximum
+         */
+        public int getSlotMaximum () {
+            return map.getInt(base + SLOT_MAXIMUM);
+        }
+
+        /**
+         * This method will retrieve the stock of a slot.
+         * @param slotNumber is the number of the slot, from 1
+         * @return the quantity in the slot, or -1 if the slot has no regular item
+         */
+        public int getStock (int slotNumber) {
+            return map.getInt(base + STOCK + 4 * checkSlot(slotNumber));
+        }
+
+        /**
+         * This method will retrieve the price of the item in a slot.
+         * @param slotNumber is the number of the slot, from 1
+         * @return the price in centavos, or 0 if the slot has no item
+         */
+        public long getPriceCentavos (int slotNumber) {
+            return map.getLong(base + PRICES + 8 * checkSlot(slotNumber));
+        }
+
+        /**
+         * This method will retrieve the number of denominations tracked for the reserve.
+         * @return the number of denominations
+         */
+        public int getDenominationCount () {
+            return map.getInt(base + DENOMINATIONS);
+        }
+
+        /**
+         * This method will retrieve the value of a denomination of the reserve.
+         * @param index is the position of the denomination
+         * @return the value in centavos
+         */
+        public long getDenominationCentavos (int index) {
+            return map.getLong(base + VALUES + 8 * index);
+        }
+
+        /**
+         * This method will retrieve the quantity held of a denomination of the reserve.
+         * @param index is the position of the denomination
+         * @return the quantity held
+         */
+        public int getDenominationQuantity (int index) {
+            return map.getInt(base + COUNTS + 4 * index);
+        }
+
+        /**
+         * This method will retrieve the kind of a denomination of the reserve.
+         * @param index is the position of the denomination
+         * @return "Bill" or "Coin"
+         */
+        public String getDenominationType (int index) {
+            return map.get(base + KINDS + index) == 1 ? "Bill" : "Coin";
+        }
+
+        /**
+         * This method will add up the reserve of the machine.
+         * @return the total value of the reserve, in centavos
+         */
+        public long getReserveTotalCentavos () {
+            long total = 0;
+
+            for (int i = 0; i < getDenominationCount(); i++)
+                total = Money.add(total, Money.multiply(getDenominationCentavos(i), getDenominationQuantity(i)));
+            return total;
+        }
+
+        /**
+         * This method will bring the stock and the reserve of a vending machine back to the values of the record,
+         * for instance after the layout of the machine was restored from a snapshot.
+         * @param machine is the vending machine, which should not be attached yet
+         */
+        public void restoreInto (VendingMachine machine) {
+            for (Slot slot : machine.getSlots()) {
+                int stock = getStock(slot.getSlotNum());
+
+                if (slot.getItem() != null && stock >= 0)
+                    slot.setQuantity(stock);
+            }
+            for (int i = 0; i < getDenominationCount(); i++)
+                machine.getMachineReserve().setCash(Denomination.ofCentavos(getDenominationCentavos(i), getDenominationType(i)),
+                                                    getDenominationQuantity(i));
+        }
+
+        /**
+         * This method will write the whole state of a vending machine to the record.
+         * @param machine is the vending machine
+         */
+        private void write (VendingMachine machine) {
+            CashHolder reserve = machine.getMachineReserve();
+
+            map.putInt(base + NUM_SLOTS, machine.getNumOfSlots());
+            map.putInt(base + SLOT_MAXIMUM, machine.getSlots().isEmpty() ? 0 : machine.getSlots().get(0).getMaximum());
+            for (int i = 0; i < MAX_SLOTS; i++) {
+                map.putInt(base + STOCK + 4 * i, -1);
+                map.putLong(base + PRICES + 8 * i, 0);
+            }
+            for (Slot slot : machine.getSlots())
+                writeSlot(slot);
+            if (machine instanceof SpecialVendingMachine)
+                for (CompoundSlot compound : ((SpecialVendingMachine) machine).getCompoundSlots())
+                    writeSlot(compound);
+
+            map.putInt(base + DENOMINATIONS, 0);
+            for (int i = 0; i < reserve.getDenominationSlots(); i++)
+                countChanged(reserve, reserve.getDenominationAt(i), 0, reserve.getCountAt(i));
+        }
+
+        /**
+         * This method will write the stock and the price of a slot of the machine. A compound item has no stock
+         * of its own, so only its price is written.
+         * @param slot is the regular or compound slot
+         */
+        private void writeSlot (Slot slot) {
+            int index = checkSlot(slot.getSlotNum());
+            Item item = slot.getItem();
+
+            map.putInt(base + STOCK + 4 * index, item != null && !(slot instanceof CompoundSlot) ? slot.getQuantity() : -1);
+            map.putLong(base + PRICES + 8 * index, item != null ? item.getPriceCentavos() : 0);
+        }
+
+        /**
+         * This method will clear a slot number that no longer has a slot in the machine.
+         * @param slotNumber is the number of the slot, from 1
+         */
+        private void clearSlot (int slotNumber) {
+            int index = checkSlot(slotNumber);
+
+            map.putInt(base + STOCK + 4 * index, -1);
+            map.putLong(base + PRICES + 8 * index, 0);
+        }
+
+        @Override
+        public void quantityChanged (Slot slot, int previousQuantity, int newQuantity) {
+            map.putInt(base + STOCK + 4 * checkSlot(slot.getSlotNum()), slot.getItem() != null ? newQuantity : -1);
+        }
+
+        @Override
+        public void layoutChanged (VendingMachine machine, Slot slot) {
+            int slotNumber = slot.getSlotNum();
+            Slot current = machine.getSlot(slotNumber);
+
+            if (current == null && machine instanceof SpecialVendingMachine)
+                current = ((SpecialVendingMachine) machine).getCompoundSlot(slotNumber);
+
+            if (current != slot)
+                slot.removeListener(this);
+            if (current == null)
+                clearSlot(slotNumber);
+            else
+                writeSlot(current);
+        }
+
+        @Override
+        public void countChanged (CashHolder holder, Denomination denomination, int previousCount, int newCount) {
+            int count = getDenominationCount();
+            int index = 0;
+
+            while (index < count && getDenominationCentavos(index) != denomination.getCentavos())
+                index++;
+
+            if (index == count) {
+                if (count == MAX_DENOMINATIONS) {
+                    MachineLog.warn(() -> "ERROR: Too many denominations for the fleet state file.");
+                    return;
+                }
+                map.putLong(base + VALUES + 8 * index, denomination.getCentavos());
+                map.put(base + KINDS + index, PurchaseJournal.kindOf(denomination));
+                map.putInt(base + DENOMINATIONS, count + 1);
+            }
+            map.putInt(base + COUNTS + 4 * index, newCount);
+        }
+
+        /**
+         * This method will turn a slot number into a position in the record.
+         * @param slotNumber is the number of the slot, from 1
+         * @return the position of the slot in the record
+         */
+        private static int checkSlot (int slotNumber) {
+            if (slotNumber < 1 || slotNumber > MAX_SLOTS)
+                throw new IndexOutOfBoundsException("Slot: " + slotNumber + ", Slots: " + MAX_SLOTS);
+            return slotNumber - 1;
+        }
+    }
+}
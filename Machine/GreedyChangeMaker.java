@@ -0,0 +1,42 @@
+/**
+ * The GreedyChangeMaker class gives change the way the vending machine originally did.
+ * It always takes the greatest denomination that fits the remaining amount, and gives up as soon as
+ * the reserve does not hold enough of that denomination, even if other coins could have paid the change.
+ *
+ * It is kept as a baseline to compare the other change makers against.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class GreedyChangeMaker implements ChangeMaker {
+
+    @Override
+    public ChangePlan makeChange (CashHolder reserve, long amount) {
+        if (amount < 0)
+            return null;
+
+        int size = reserve.getDenominationSlots();
+        Denomination[] denominations = new Denomination[size];
+        int[] quantities = new int[size];
+        long remaining = amount;
+
+        for (int i = size - 1; i >= 0 && remaining > 0; i--) {
+            denominations[i] = reserve.getDenominationAt(i);
+            long value = denominations[i].getCentavos();
+            int count = reserve.getCountAt(i);
+
+            if (count == 0 || value > remaining)
+                continue;
+
+            long quantity = remaining / value;
+            if (quantity > count)
+                return null;
+
+            quantities[i] = (int) quantity;
+            remaining -= value * quantity;
+        }
+
+        return remaining == 0 ? new ChangePlan(denominations, quantities, size) : null;
+    }
+}
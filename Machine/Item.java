@@ -1,6 +1,9 @@
+import java.util.ArrayList;
+
 /**
  * The Item class represents an item available in a vending machine. 
  * Each item has a name, price, and calorie content.
+ * Listeners registered with addListener are told every time the price changes.
  * 
  * @author Ampatin, Ian Kenneth J
  * @author Paredes, Bill Jethro P
@@ -9,23 +12,26 @@
 public class Item {
     // Declartion of variables
     private String itemName;
-    private double itemPrice;
+    private long itemPrice;
     private double calories;
+    private ArrayList<ItemListener> listeners = new ArrayList<ItemListener>();
 
     /**
      * Constructs a new Item object with the provided name, price, and calorie content.
      * @param name is the name of the item
-     * @param price is the price of the item
+     * @param price is the price of the item in pesos
      * @param calories is the calorie content of the item
      */
     public Item (String name, double price, double calories) {
         itemName = name;
-        itemPrice = price;
+        itemPrice = Money.fromPesos(price);
         this.calories = calories;
     }
 
     /**
      * This method will set the name of the item.
+     * An item held by a vending machine must be renamed with VendingMachine.renameItem instead,
+     * since the machine finds its slots by item name.
      * @param name is the name of the item
      */
     public void setName (String name) {
@@ -34,10 +40,42 @@ public class Item {
 
     /**
      * This method sets the price of the item.
-     * @param price is the price of the item
+     * @param price is the price of the item in pesos
      */
     public void setPrice (double price) {
-        itemPrice = price;
+        this.setPriceCentavos(Money.fromPesos(price));
+    }
+
+    /**
+     * This method sets the price of the item in centavos.
+     * @param centavos is the price of the item in centavos
+     */
+    public void setPriceCentavos (long centavos) {
+        long previous = itemPrice;
+        itemPrice = centavos;
+
+        if (previous != centavos) {
+            for (int i = 0; i < listeners.size(); i++)
+                listeners.get(i).priceChanged(this, previous, centavos);
+        }
+    }
+
+    /**
+     * This method will register a listener that is told every time the price of the item changes.
+     * A listener that is already registered is not added again.
+     * @param listener is the listener to register
+     */
+    public void addListener (ItemListener listener) {
+        if (!listeners.contains(listener))
+            listeners.add(listener);
+    }
+
+    /**
+     * This method will remove a listener that was registered with addListener.
+     * @param listener is the listener to remove
+     */
+    public void removeListener (ItemListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -58,9 +96,17 @@ public class Item {
 
     /**
      * This method retrieves the price of the item.
-     * @return is the price of the item
+     * @return is the price of the item in pesos
      */
     public double getPrice () {
+        return Money.toPesos(itemPrice);
+    }
+
+    /**
+     * This method retrieves the price of the item in centavos.
+     * @return is the price of the item in centavos
+     */
+    public long getPriceCentavos () {
         return itemPrice;
     }
 
@@ -74,11 +120,31 @@ public class Item {
 
     /**
      * This method compares this Item object to the specified object for equality.
-     * Two items are considered equal if they have the same name, price, and calorie content.
+     * Two items are considered equal if they have the same name (ignoring case), price, and calorie content.
      * @param compItem the object to compare with
      * @return true if the objects are equal, false otherwise
      */
+    @Override
     public boolean equals (Object compItem) {
-        return itemName.equalsIgnoreCase(((Item)compItem).getName()) && itemPrice == (((Item)compItem).getPrice()) && calories == (((Item)compItem).getCalories());
+        if (this == compItem)
+            return true;
+        if (!(compItem instanceof Item))
+            return false;
+
+        Item other = (Item) compItem;
+        return itemPrice == other.itemPrice && Double.compare(calories, other.calories) == 0
+            && ItemCatalog.normalizeName(itemName).equals(ItemCatalog.normalizeName(other.itemName));
+    }
+
+    /**
+     * This method computes a hash code that is consistent with equals.
+     * Since items are mutable, an item should not be changed while it is used as a hash key.
+     * @return the hash code of the item
+     */
+    @Override
+    public int hashCode () {
+        int hash = ItemCatalog.normalizeName(itemName).hashCode();
+        hash = 31 * hash + Long.hashCode(itemPrice);
+        return 31 * hash + Double.hashCode(calories);
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * The ItemCatalog class gives every item name known to a vending machine a small integer ID.
+ * IDs are handed out in order starting from 0, so they can be used as indexes into arrays
+ * of slots, recipes and sales instead of comparing names.
+ *
+ * Names are matched without regard to case, and an ID never changes once it is given,
+ * even if the item is renamed.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class ItemCatalog {
+    // Declaration of variables
+    private HashMap<String, Integer> idsByName;
+    private ArrayList<Item> items;
+    private ArrayList<String> names;
+
+    /**
+     * Constructs a new, empty ItemCatalog.
+     */
+    public ItemCatalog () {
+        idsByName = new HashMap<String, Integer>();
+        items = new ArrayList<Item>();
+        names = new ArrayList<String>();
+    }
+
+    /**
+     * This method will convert an item name to the key used by the catalog and the name indexes,
+     * so that names are matched without regard to case.
+     * @param name is the item name
+     * @return the key for the name
+     */
+    public static String normalizeName (String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * This method will retrieve the ID of the given item, giving it a new ID if its name is not known yet.
+     * @param item is the item to look up
+     * @return the ID of the item
+     */
+    public int intern (Item item) {
+        return intern(item.getName(), item);
+    }
+
+    /**
+     * This method will retrieve the ID of the given item name, giving it a new ID if it is not known yet.
+     * @param name is the item name to look up
+     * @return the ID of the item name
+     */
+    public int intern (String name) {
+        return intern(name, null);
+    }
+
+    /**
+     * This method will retrieve the ID of the given item name, giving it a new ID if it is not known yet.
+     * @param name is the item name to look up
+     * @param item is the item to remember for a new ID, or null
+     * @return the ID of the item name
+     */
+    private int intern (String name, Item item) {
+        String key = normalizeName(name);
+        Integer id = idsByName.get(key);
+
+        if (id == null) {
+            id = items.size();
+            idsByName.put(key, id);
+            items.add(item);
+            names.add(name);
+        }
+        else if (items.get(id) == null && item != null) {
+            items.set(id, item);
+        }
+        return id;
+    }
+
+    /**
+     * This method will retrieve the ID of the given item name without giving it a new one.
+     * @param name is the item name to look up
+     * @return the ID of the item name, or -1 if the name is not known
+     */
+    public int getId (String name) {
+        Integer id = idsByName.get(normalizeName(name));
+        return id != null ? id : -1;
+    }
+
+    /**
+     * This method will retrieve the item that was registered with the given ID.
+     * @param id is the ID of the item
+     * @return the item with that ID, or null if it was only registered by name
+     */
+    public Item getItem (int id) {
+        return items.get(id);
+    }
+
+    /**
+     * This method will retrieve the name registered with the given ID.
+     * @param id is the ID of the item
+     * @return the name of the item with that ID
+     */
+    public String getName (int id) {
+        return names.get(id);
+    }
+
+    /**
+     * This method will change the name registered with the given ID, keeping the ID.
+     * @param id is the ID of the item
+     * @param newName is the new name of the item
+     * @return true if the name was changed, false if the new name belongs to another ID
+     */
+    public boolean rename (int id, String newName) {
+        String key = normalizeName(newName);
+        Integer existing = idsByName.get(key);
+
+        if (existing != null && existing != id)
+            return false;
+
+        idsByName.remove(normalizeName(names.get(id)));
+        idsByName.put(key, id);
+        names.set(id, newName);
+        return true;
+    }
+
+    /**
+     * This method will retrieve the number of IDs that have been given.
+     * @return the number of IDs, which is one more than the greatest ID
+     */
+    public int size () {
+        return items.size();
+    }
+}
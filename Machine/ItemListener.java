@@ -0,0 +1,18 @@
+/**
+ * The ItemListener interface provides a contract for classes that need to follow the price of an Item,
+ * such as vending machines that keep their price tables and stored state up to date.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public interface ItemListener {
+
+    /**
+     * Called after the price of an item has changed.
+     * @param item is the item whose price changed
+     * @param previousPrice is the price before the change, in centavos
+     * @param newPrice is the price after the change, in centavos
+     */
+    public void priceChanged (Item item, long previousPrice, long newPrice);
+}
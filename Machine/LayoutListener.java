@@ -0,0 +1,19 @@
+/**
+ * The LayoutListener interface provides a contract for classes that need to follow the slot layout of a
+ * VendingMachine, such as stores and state files that have to write every slot of the machine.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public interface LayoutListener {
+
+    /**
+     * Called after a slot of the machine was given an item, removed from the machine, or given to a compound item,
+     * after its recipe changed, or after the item in it was renamed or given a new price.
+     * A slot that was removed is no longer returned by getSlot.
+     * @param machine is the vending machine whose layout changed
+     * @param slot is the slot that changed
+     */
+    public void layoutChanged (VendingMachine machine, Slot slot);
+}
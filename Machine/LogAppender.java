@@ -0,0 +1,17 @@
+/**
+ * The LogAppender interface provides a contract for classes that write the messages of MachineLog somewhere,
+ * such as the console or a file.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public interface LogAppender {
+
+    /**
+     * Called for every message that passed the level of MachineLog.
+     * @param level is the level of the message
+     * @param message is the message to write
+     */
+    public void append (LogLevel level, String message);
+}
@@ -0,0 +1,20 @@
+/**
+ * The LogLevel enum lists the levels of the messages written through MachineLog,
+ * from the most detailed to the most severe.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public enum LogLevel {
+    /** Step by step tracing of purchases and transfers. */
+    DEBUG,
+    /** Completed actions, such as a purchase or an insertion. */
+    INFO,
+    /** Actions that could not be completed. */
+    WARN,
+    /** Unexpected failures. */
+    ERROR,
+    /** Used as a threshold to turn every message off. */
+    OFF
+}
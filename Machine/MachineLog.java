@@ -0,0 +1,161 @@
+import java.util.function.Supplier;
+
+/**
+ * The MachineLog class is the single place where the vending machine classes write their messages.
+ *
+ * Every message has a level, and only messages at or above the current level are passed to the appender.
+ * A message that needs to be built, such as one that joins names and amounts, is given as a Supplier,
+ * so that nothing is built when its level is turned off. By default, DEBUG messages are off and the
+ * others are printed to the console by an AsyncLogAppender.
+ *
+ * The steps every customer goes through, such as accepting money, a successful purchase and a cancelled
+ * transaction, are written at DEBUG so the purchase path stays quiet at the default level. INFO is kept
+ * for maintenance, such as inserting, restocking and collecting.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public final class MachineLog {
+    // Declaration of variables
+    private static final int BUFFER_CAPACITY = 4096;
+    private static volatile LogLevel level = LogLevel.INFO;
+    private static volatile LogAppender appender;
+
+    static {
+        AsyncLogAppender console = new AsyncLogAppender(System.out, BUFFER_CAPACITY);
+        appender = console;
+        Runtime.getRuntime().addShutdownHook(new Thread(console::flush));
+    }
+
+    /**
+     * MachineLog only has static methods.
+     */
+    private MachineLog () {
+    }
+
+    /**
+     * This method will set the lowest level of the messages that are written.
+     * @param newLevel is the new level, or OFF to turn every message off
+     */
+    public static void setLevel (LogLevel newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * This method will retrieve the lowest level of the messages that are written.
+     * @return the current level
+     */
+    public static LogLevel getLevel () {
+        return level;
+    }
+
+    /**
+     * This method will set where the messages are written.
+     * @param newAppender is the appender that will receive the messages
+     */
+    public static void setAppender (LogAppender newAppender) {
+        appender = newAppender;
+    }
+
+    /**
+     * This method will retrieve where the messages are written.
+     * @return the current appender
+     */
+    public static LogAppender getAppender () {
+        return appender;
+    }
+
+    /**
+     * This method will check if messages of the given level are written.
+     * @param messageLevel is the level to check
+     * @return true if messages of that level are written, false otherwise
+     */
+    public static boolean isEnabled (LogLevel messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != LogLevel.OFF;
+    }
+
+    /**
+     * This method will write a message if its level is enabled.
+     * @param messageLevel is the level of the message
+     * @param message is the message
+     */
+    public static void log (LogLevel messageLevel, String message) {
+        if (isEnabled(messageLevel))
+            appender.append(messageLevel, message);
+    }
+
+    /**
+     * This method will build and write a message if its level is enabled.
+     * @param messageLevel is the level of the message
+     * @param message builds the message, and is only called if the level is enabled
+     */
+    public static void log (LogLevel messageLevel, Supplier<String> message) {
+        if (isEnabled(messageLevel))
+            appender.append(messageLevel, message.get());
+    }
+
+    /**
+     * This method will write a DEBUG message.
+     * @param message is the message
+     */
+    public static void debug (String message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    /**
+     * This method will build and write a DEBUG message.
+     * @param message builds the message
+     */
+    public static void debug (Supplier<String> message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    /**
+     * This method will write an INFO message.
+     * @param message is the message
+     */
+    public static void info (String message) {
+        log(LogLevel.INFO, message);
+    }
+
+    /**
+     * This method will build and write an INFO message.
+     * @param message builds the message
+     */
+    public static void info (Supplier<String> message) {
+        log(LogLevel.INFO, message);
+    }
+
+    /**
+     * This method will write a WARN message.
+     * @param message is the message
+     */
+    public static void warn (String message) {
+        log(LogLevel.WARN, message);
+    }
+
+    /**
+     * This method will build and write a WARN message.
+     * @param message builds the message
+     */
+    public static void warn (Supplier<String> message) {
+        log(LogLevel.WARN, message);
+    }
+
+    /**
+     * This method will write an ERROR message.
+     * @param message is the message
+     */
+    public static void error (String message) {
+        log(LogLevel.ERROR, message);
+    }
+
+    /**
+     * This method will build and write an ERROR message.
+     * @param message builds the message
+     */
+    public static void error (Supplier<String> message) {
+        log(LogLevel.ERROR, message);
+    }
+}
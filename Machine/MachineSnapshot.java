@@ -0,0 +1,289 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The MachineSnapshot class writes the whole state of a SpecialVendingMachine to a binary file and reads it back:
+ * the item catalog, the regular slots with their items and stock, the compound items with their recipes,
+ * the denominations held by the reserve and by the consumer, and the sales totals of the transaction record
+ * per item, per epoch and per time bucket. The transactions themselves are kept in a TransactionSegment
+ * that the snapshot refers to by its number of transactions, so writing a snapshot only appends the
+ * transactions since the last one, and reading it does not read any transaction.
+ *
+ * A snapshot is written to a temporary file, forced to the disk and then moved over the target,
+ * and the directory is forced after the move, so a crash while writing never leaves a partial snapshot
+ * behind and a snapshot that was written is never lost with its name. The file ends with the CRC32
+ * of its contents, which is checked when it is read.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public final class MachineSnapshot {
+    // Declaration of constants
+    public static final int MAGIC = 0x534D5650;
+    public static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The MachineSnapshot class only has static methods.
+     */
+    private MachineSnapshot () {
+    }
+
+    /**
+     * This method will write a snapshot of a vending machine to a file.
+     * The machine must not be used by another thread while it is written.
+     * @param machine is the vending machine
+     * @param file is the file of the snapshot, which is replaced if it exists
+     * @param segment is the segment that receives the transactions of the machine
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write (SpecialVendingMachine machine, Path file, TransactionSegment segment) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeMachine(machine, out, segment);
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * This method will force the entries of a directory to the disk, so the files created, renamed or deleted
+     * in it stay that way after a crash. Some systems, such as Windows, cannot open a directory, and only
+     * allow this to be skipped.
+     * @param directory is the directory
+     * @throws IOException if the directory cannot be forced
+     */
+    static void forceDirectory (Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (AccessDeniedException e) {
+            MachineLog.debug(() -> "Directory " + directory + " cannot be forced on this system");
+        }
+    }
+
+    /**
+     * This method will read a vending machine back from a snapshot.
+     * @param file is the file of the snapshot
+     * @param segment is the segment holding the transactions of the snapshot
+     * @return a new vending machine with the state of the snapshot
+     * @throws IOException if the snapshot cannot be read, or is damaged
+     */
+    public static SpecialVendingMachine read (Path file, TransactionSegment segment) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(stream, BUFFER_SIZE), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a vending machine snapshot: " + file);
+
+            SpecialVendingMachine machine = readMachine(in, segment);
+            int expected = (int) checked.getChecksum().getValue();
+
+            if (in.readInt() != expected)
+                throw new IOException("Damaged vending machine snapshot: " + file);
+            return machine;
+        }
+    }
+
+    /**
+     * This method will write the state of a vending machine.
+     * @param machine is the vending machine
+     * @param out is the stream of the snapshot
+     * @param segment is the segment that receives the transactions of the machine
+     * @throws IOException if the snapshot cannot be written
+     */
+    private static void writeMachine (SpecialVendingMachine machine, DataOutputStream out, TransactionSegment segment) throws IOException {
+        ItemCatalog catalog = machine.getCatalog();
+        ArrayList<Slot> slots = machine.getSlots();
+        ArrayList<CompoundSlot> compounds = machine.getCompoundSlots();
+
+        out.writeUTF(machine.getName());
+        out.writeInt(machine.getNumOfSlots());
+        out.writeInt(slots.isEmpty() ? 0 : slots.get(0).getMaximum());
+        out.writeInt(machine.getCurrentItemCount());
+
+        out.writeInt(catalog.size());
+        for (int id = 0; id < catalog.size(); id++)
+            out.writeUTF(catalog.getName(id));
+
+        out.writeInt(slots.size());
+        for (Slot slot : slots) {
+            out.writeInt(slot.getSlotNum());
+            out.writeBoolean(slot.getItem() != null);
+            if (slot.getItem() != null) {
+                writeItem(slot.getItem(), out);
+                out.writeInt(slot.getQuantity());
+            }
+        }
+
+        out.writeInt(compounds.size());
+        for (CompoundSlot compound : compounds) {
+            out.writeInt(compound.getSlotNum());
+            writeItem(compound.getItem(), out);
+            out.writeInt(compound.getRequiredItems().size());
+            for (RequiredItem required : compound.getRequiredItems()) {
+                writeItem(required.getItem(), out);
+                out.writeInt(required.getRequiredQuantity());
+            }
+        }
+
+        writeCash(machine.getMachineReserve(), out);
+        writeCash(machine.getConsumer(), out);
+        machine.getTransactionRecord().writeTo(out, segment);
+    }
+
+    /**
+     * This method will read the state of a vending machine written by writeMachine.
+     * @param in is the stream of the snapshot
+     * @param segment is the segment holding the transactions of the snapshot
+     * @return a new vending machine with that state
+     * @throws IOException if the snapshot cannot be read
+     */
+    private static SpecialVendingMachine readMachine (DataInputStream in, TransactionSegment segment) throws IOException {
+        String name = in.readUTF();
+        int numOfSlots = in.readInt();
+        int slotMaximum = in.readInt();
+        int itemCount = in.readInt();
+        SpecialVendingMachine machine = new SpecialVendingMachine(name, numOfSlots, slotMaximum);
+        ItemCatalog catalog = machine.getCatalog();
+        HashSet<Integer> kept = new HashSet<Integer>();
+
+        int names = in.readInt();
+        for (int id = 0; id < names; id++)
+            catalog.intern(in.readUTF());
+
+        int slots = in.readInt();
+        for (int i = 0; i < slots; i++) {
+            int slotNumber = in.readInt();
+
+            kept.add(slotNumber);
+            if (in.readBoolean()) {
+                Item item = readItem(in, catalog);
+                machine.restoreSlot(slotNumber, item, in.readInt());
+            }
+        }
+
+        int compounds = in.readInt();
+        for (int i = 0; i < compounds; i++) {
+            int slotNumber = in.readInt();
+            Item item = readItem(in, catalog);
+            int recipe = in.readInt();
+            ArrayList<RequiredItem> required = new ArrayList<RequiredItem>(recipe);
+
+            for (int r = 0; r < recipe; r++) {
+                Item ingredient = readItem(in, catalog);
+                required.add(new RequiredItem(ingredient, in.readInt()));
+            }
+            kept.add(slotNumber);
+            machine.restoreCompound(slotNumber, item, required);
+        }
+
+        // Slots given up for compound items that are gone were removed from the machine
+        for (Slot slot : new ArrayList<Slot>(machine.getSlots()))
+            if (!kept.contains(slot.getSlotNum()))
+                machine.dropSlot(slot.getSlotNum());
+
+        machine.setItemCount(itemCount);
+        int reserve = in.readInt();
+        for (int i = 0; i < reserve; i++) {
+            Denomination denomination = readDenomination(in);
+            machine.replayReserve(denomination, in.readInt());
+        }
+        int consumer = in.readInt();
+        for (int i = 0; i < consumer; i++) {
+            Denomination denomination = readDenomination(in);
+            machine.replayDeposit(denomination, in.readInt());
+        }
+        machine.getTransactionRecord().readFrom(in, segment);
+        return machine;
+    }
+
+    /**
+     * This method will write an item.
+     * @param item is the item
+     * @param out is the stream of the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    private static void writeItem (Item item, DataOutputStream out) throws IOException {
+        out.writeUTF(item.getName());
+        out.writeLong(item.getPriceCentavos());
+        out.writeDouble(item.getCalories());
+    }
+
+    /**
+     * This method will read an item written by writeItem. An item that is already in the catalog is shared,
+     * so a regular slot and the recipes that use it keep referring to the same item.
+     * @param in is the stream of the snapshot
+     * @param catalog is the item catalog of the machine being restored
+     * @return the item
+     * @throws IOException if the snapshot cannot be read
+     */
+    private static Item readItem (DataInputStream in, ItemCatalog catalog) throws IOException {
+        String name = in.readUTF();
+        long price = in.readLong();
+        double calories = in.readDouble();
+        int id = catalog.getId(name);
+
+        if (id >= 0 && catalog.getItem(id) != null)
+            return catalog.getItem(id);
+
+        Item item = new Item(name, 0, calories);
+        item.setPriceCentavos(price);
+        return item;
+    }
+
+    /**
+     * This method will write the denominations held by a cash holder, with their quantities.
+     * @param holder is the cash holder
+     * @param out is the stream of the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    private static void writeCash (CashHolder holder, DataOutputStream out) throws IOException {
+        out.writeInt(holder.getDenominationSlots());
+        for (int i = 0; i < holder.getDenominationSlots(); i++) {
+            out.writeLong(holder.getDenominationAt(i).getCentavos());
+            out.writeUTF(holder.getDenominationAt(i).getDenominationType());
+            out.writeInt(holder.getCountAt(i));
+        }
+    }
+
+    /**
+     * This method will read a denomination written by writeCash.
+     * @param in is the stream of the snapshot
+     * @return the denomination
+     * @throws IOException if the snapshot cannot be read
+     */
+    private static Denomination readDenomination (DataInputStream in) throws IOException {
+        long centavos = in.readLong();
+        return Denomination.ofCentavos(centavos, in.readUTF());
+    }
+}
@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The MachineStore class keeps a SpecialVendingMachine durable in a directory, with periodic snapshots
+ * and a journal of the events since the latest snapshot.
+ *
+ * The directory holds numbered generations: snapshot-N.bin is the state of the machine when generation N
+ * started, and journal-N.log is the PurchaseJournal of every event since then. A checkpoint writes the
+ * snapshot of generation N + 1, starts its journal, forces the directory so both are there after a crash,
+ * and only then deletes generation N. Restarting
+ * loads the latest snapshot and replays only its journal, so the time it takes depends on the events
+ * since the last checkpoint rather than on the whole history of the machine.
+ *
+ * The snapshots only hold the sales totals. Every transaction is kept once in transactions.seg, a
+ * TransactionSegment shared by the generations: a checkpoint appends the transactions since the last one,
+ * and a restart leaves them in the file until the history of the machine is looked at.
+ *
+ * Checkpoints are taken by checkpointIfDue once the journal holds the given number of events. It is
+ * called by the thread that uses the machine, between customers, since a snapshot must not be written
+ * while a purchase is in progress.
+ *
+ * Changes to the slot layout, such as an item inserted in a slot, a slot given to a compound item, a renamed
+ * item or a new price, are journaled like any other event, so they never cost a snapshot of their own.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class MachineStore {
+    // Declaration of variables
+    private final Path directory;
+    private final int batchSize;
+    private final long windowMillis;
+    private final long snapshotEvery;
+    private final SpecialVendingMachine machine;
+    private long generation;
+    private PurchaseJournal journal;
+    private final TransactionSegment segment;
+
+    /**
+     * Constructs a MachineStore for a machine whose snapshot of the given generation is already on the disk.
+     * @param directory is the directory of the store
+     * @param machine is the vending machine
+     * @param generation is the generation of the latest snapshot
+     * @param segment is the segment of the transactions of the machine
+     * @param batchSize is the number of events the journal commits together
+     * @param windowMillis is the longest time an event waits to be committed
+     * @param snapshotEvery is the number of journal events after which a checkpoint is due, or 0 for never
+     * @throws IOException if the journal cannot be opened
+     */
+    private MachineStore (Path directory, SpecialVendingMachine machine, long generation, TransactionSegment segment,
+                          int batchSize, long windowMillis, long snapshotEvery) throws IOException {
+        this.directory = directory;
+        this.machine = machine;
+        this.generation = generation;
+        this.segment = segment;
+        this.batchSize = batchSize;
+        this.windowMillis = windowMillis;
+        this.snapshotEvery = snapshotEvery;
+        this.journal = new PurchaseJournal(journalFile(generation), batchSize, windowMillis);
+        machine.setJournal(journal);
+    }
+
+    /**
+     * This method will start a new store for a machine, with its current state as the first snapshot.
+     * Anything already in the directory is replaced.
+     * @param directory is the directory of the store, which is created if needed
+     * @param machine is the vending machine, which must not have a journal yet
+     * @param batchSize is the number of events the journal commits together
+     * @param windowMillis is the longest time an event waits to be committed
+     * @param snapshotEvery is the number of journal events after which a checkpoint is due, or 0 for never
+     * @return the store, with its journal attached to the machine
+     * @throws IOException if the directory cannot be written
+     */
+    public static MachineStore create (Path directory, SpecialVendingMachine machine,
+                                       int batchSize, long windowMillis, long snapshotEvery) throws IOException {
+        Files.createDirectories(directory);
+        deleteGenerations(directory, Long.MAX_VALUE);
+        Files.deleteIfExists(segmentFile(directory));
+
+        TransactionSegment segment = new TransactionSegment(segmentFile(directory));
+        MachineSnapshot.write(machine, snapshotFile(directory, 0), segment);
+        MachineStore store = new MachineStore(directory, machine, 0, segment, batchSize, windowMillis, snapshotEvery);
+
+        MachineSnapshot.forceDirectory(directory);
+        return store;
+    }
+
+    /**
+     * This method will restart a machine from its store: the latest snapshot is loaded, the events of its
+     * journal are replayed, and a record torn by a crash at the end of the journal is removed.
+     * @param directory is the directory of the store
+     * @param batchSize is the number of events the journal commits together
+     * @param windowMillis is the longest time an event waits to be committed
+     * @param snapshotEvery is the number of journal events after which a checkpoint is due, or 0 for never
+     * @return the store, with the restored machine and its journal attached
+     * @throws IOException if there is no snapshot or the files cannot be read
+     */
+    public static MachineStore open (Path directory, int batchSize, long windowMillis, long snapshotEvery) throws IOException {
+        long generation = latestGeneration(directory);
+
+        if (generation < 0)
+            throw new IOException("No vending machine snapshot in " + directory);
+
+        TransactionSegment segment = new TransactionSegment(segmentFile(directory));
+        SpecialVendingMachine machine;
+
+        try {
+            machine = MachineSnapshot.read(snapshotFile(directory, generation), segment);
+        }
+        catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        Path journal = journalFile(directory, generation);
+
+        if (Files.exists(journal)) {
+            long valid = PurchaseJournal.replay(journal, machine);
+            long size = Files.size(journal);
+
+            if (valid < size) {
+                MachineLog.warn(() -> "Discarding " + (size - valid) + " bytes torn from the end of " + journal);
+                PurchaseJournal.truncate(journal, valid);
+            }
+        }
+        deleteGenerations(directory, generation);
+        return new MachineStore(directory, machine, generation, segment, batchSize, windowMillis, snapshotEvery);
+    }
+
+    /**
+     * This method will retrieve the vending machine of the store.
+     * @return the vending machine
+     */
+    public SpecialVendingMachine getMachine () {
+        return machine;
+    }
+
+    /**
+     * This method will retrieve the generation of the latest snapshot.
+     * @return the generation
+     */
+    public long getGeneration () {
+        return generation;
+    }
+
+    /**
+     * This method will take a checkpoint if the journal holds enough events.
+     * @return true if a checkpoint was taken
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public boolean checkpointIfDue () throws IOException {
+        if (snapshotEvery <= 0 || journal.getRecords() < snapshotEvery)
+            return false;
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * This method will write a snapshot of the machine as a new generation, start its journal,
+     * and delete the previous generation. The journal of the previous generation stays attached until the
+     * new snapshot and journal are both written, so a checkpoint that fails leaves the store as it was.
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void checkpoint () throws IOException {
+        Path snapshot = snapshotFile(directory, generation + 1);
+        PurchaseJournal next = null;
+
+        MachineSnapshot.write(machine, snapshot, segment);
+        try {
+            next = new PurchaseJournal(journalFile(generation + 1), batchSize, windowMillis);
+            MachineSnapshot.forceDirectory(directory);
+        }
+        catch (IOException e) {
+            // Without its journal the new snapshot would hide the events still written to the old one
+            if (next != null)
+                next.close();
+            Files.deleteIfExists(journalFile(generation + 1));
+            Files.deleteIfExists(snapshot);
+            throw e;
+        }
+
+        PurchaseJournal previous = journal;
+        long closing = generation;
+
+        machine.setJournal(next);
+        journal = next;
+        generation++;
+        try {
+            previous.close();
+        }
+        catch (IOException e) {
+            // Every event of the previous journal is already in the new snapshot
+            MachineLog.warn(() -> "Could not close the journal of generation " + closing + ": " + e);
+        }
+        deleteGenerations(directory, generation);
+    }
+
+    /**
+     * This method will commit the journal and close it. The machine is no longer journaled afterwards.
+     * @throws IOException if the journal cannot be closed
+     */
+    public void close () throws IOException {
+        machine.setJournal(null);
+        try {
+            journal.close();
+        }
+        finally {
+            segment.close();
+        }
+    }
+
+
+    /**
+     * This method will find the journal of a generation of this store.
+     * @param generation is the generation
+     * @return the file of the journal
+     */
+    private Path journalFile (long generation) {
+        return journalFile(directory, generation);
+    }
+
+    /**
+     * This method will find the snapshot of a generation.
+     * @param directory is the directory of the store
+     * @param generation is the generation
+     * @return the file of the snapshot
+     */
+    static Path snapshotFile (Path directory, long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    /**
+     * This method will find the segment of the transactions of a store.
+     * @param directory is the directory of the store
+     * @return the file of the segment
+     */
+    static Path segmentFile (Path directory) {
+        return directory.resolve("transactions.seg");
+    }
+
+    /**
+     * This method will find the journal of a generation.
+     * @param directory is the directory of the store
+     * @param generation is the generation
+     * @return the file of the journal
+     */
+    static Path journalFile (Path directory, long generation) {
+        return directory.resolve("journal-" + generation + ".log");
+    }
+
+    /**
+     * This method will find the generation of the latest snapshot in a directory.
+     * @param directory is the directory of the store
+     * @return the latest generation, or -1 if there is no snapshot
+     * @throws IOException if the directory cannot be read
+     */
+    private static long latestGeneration (Path directory) throws IOException {
+        long latest = -1;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.bin")) {
+            for (Path file : files)
+                latest = Math.max(latest, generationOf(file));
+        }
+        return latest;
+    }
+
+    /**
+     * This method will delete the snapshots and journals older than a generation.
+     * @param directory is the directory of the store
+     * @param keep is the oldest generation to keep
+     * @throws IOException if a file cannot be deleted
+     */
+    private static void deleteGenerations (Path directory, long keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{snapshot,journal}-*.{bin,log,tmp}")) {
+            for (Path file : files)
+                if (generationOf(file) < keep)
+                    Files.delete(file);
+        }
+    }
+
+    /**
+     * This method will read the generation from the name of a snapshot or journal.
+     * @param file is the snapshot or journal
+     * @return the generation, or Long.MAX_VALUE if the name has none
+     */
+    private static long generationOf (Path file) {
+        String name = file.getFileName().toString();
+        String digits = name.substring(name.indexOf('-') + 1, name.indexOf('.'));
+
+        try {
+            return Long.parseLong(digits);
+        }
+        catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The Money class holds the helpers for working with money as a whole number of centavos.
+ * Every amount on the purchase path is kept as a long count of centavos so that totals, prices
+ * and change never drift the way double values do.
+ *
+ * The class also works as the adapter between the peso values (doubles) accepted by the older
+ * constructors and methods, and the centavo values used internally.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public final class Money {
+    // Declaration of constants
+    public static final long CENTAVOS_PER_PESO = 100;
+
+    /**
+     * The Money class only has static helpers and is never instantiated.
+     */
+    private Money () {
+    }
+
+    /**
+     * This method will convert an amount in pesos to centavos, rounding to the nearest centavo.
+     * @param pesos is the amount in pesos
+     * @return the same amount in centavos
+     */
+    public static long fromPesos (double pesos) {
+        return Math.round(pesos * CENTAVOS_PER_PESO);
+    }
+
+    /**
+     * This method will convert an amount in centavos to pesos.
+     * @param centavos is the amount in centavos
+     * @return the same amount in pesos
+     */
+    public static double toPesos (long centavos) {
+        return (double) centavos / CENTAVOS_PER_PESO;
+    }
+
+    /**
+     * This method will add two amounts of centavos.
+     * @param first is the first amount
+     * @param second is the second amount
+     * @return the sum of both amounts
+     * @throws ArithmeticException if the sum overflows
+     */
+    public static long add (long first, long second) {
+        return Math.addExact(first, second);
+    }
+
+    /**
+     * This method will subtract an amount of centavos from another.
+     * @param first is the amount to subtract from
+     * @param second is the amount that will be subtracted
+     * @return the difference of both amounts
+     * @throws ArithmeticException if the difference overflows
+     */
+    public static long subtract (long first, long second) {
+        return Math.subtractExact(first, second);
+    }
+
+    /**
+     * This method will multiply an amount of centavos by a quantity.
+     * @param centavos is the amount of a single unit
+     * @param quantity is the number of units
+     * @return the amount of all the units
+     * @throws ArithmeticException if the product overflows
+     */
+    public static long multiply (long centavos, int quantity) {
+        return Math.multiplyExact(centavos, (long) quantity);
+    }
+
+    /**
+     * This method will format an amount of centavos as pesos with two decimal places.
+     * @param centavos is the amount in centavos
+     * @return the formatted amount, for example "12.50"
+     */
+    public static String format (long centavos) {
+        long whole = Math.abs(centavos) / CENTAVOS_PER_PESO;
+        long fraction = Math.abs(centavos) % CENTAVOS_PER_PESO;
+        return (centavos < 0 ? "-" : "") + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,911 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * The PurchaseJournal class is an append-only write-ahead journal of the events of a vending machine:
+ * purchases, deposits, cancelled transactions, restocks, the end of restock visits, collections, every
+ * change to the quantity of a denomination in the machine reserve (as a CashListener of the reserve), and every
+ * change to the slot layout, such as an inserted item, a slot given to a compound item, a rename or a new price
+ * (as a LayoutListener of the machine).
+ *
+ * Events are encoded in a compact binary form into a buffer and written to the file through a FileChannel.
+ * The file is not forced to the disk after every event. Instead, the events are committed as a group:
+ * once batchSize events are waiting, or once the oldest waiting event is windowMillis old, all of them are
+ * written and forced to the disk with a single fsync. A batch size of 1 forces every event.
+ * The time window is kept by a background thread, so a purchase never waits on the disk unless it
+ * completes a batch. An event is only durable after the commit that covers it.
+ *
+ * The journal stops at the first write or fsync that fails. The failure is kept, nothing is appended to
+ * the file afterwards (so a record torn by a partial write stays the last one), and every later event or
+ * commit throws. A machine checks its journal with checkWritable before every event, so it refuses
+ * customers instead of getting ahead of what a restart would restore.
+ *
+ * The file starts with the magic number and the version of the format, followed by the records.
+ * Every record is written in little-endian order as:
+ * the length of the type, time and payload (int), the type (byte), the time in milliseconds (long),
+ * the payload, and the CRC32 of the type, time and payload (int). The payloads are:
+ * PURCHASE: slot number (int), item ID (int), quantity (int), unit price in centavos (long);
+ * DEPOSIT: value in centavos (long), kind (byte, 1 for a bill), quantity (int);
+ * CANCEL: amount returned in centavos (long);
+ * RESTOCK: slot number (int), quantity added (int);
+ * COLLECT: amount collected in centavos (long);
+ * RESERVE: value in centavos (long), kind (byte, 1 for a bill), new quantity held (int);
+ * EPOCH: nothing, the sales so far were sealed as an epoch at the time of the record;
+ * GROUP: the records of one logical event, each written like a record of the file;
+ * SLOT: slot number (int), item count of the machine (int), quantity (int), item;
+ * REMOVE: slot number (int), item count of the machine (int);
+ * COMPOUND: slot number (int), item count of the machine (int), item, number of required items (int),
+ * and for each required item, the item and the required quantity (int).
+ * An item is written as its name (a short length and UTF-8 bytes), price in centavos (long) and calories (double).
+ * A layout record holds the whole state of the slot after the change, so a rename and a new price are
+ * journaled the same way as an inserted item.
+ *
+ * A purchase changes the reserve and the stock, and each change is its own record. The machine wraps
+ * such an event in beginGroup and endGroup: the records made by its thread in between are held back and
+ * appended as a single GROUP record with one checksum, so a commit, and so a crash, never splits the event.
+ *
+ * A journal is read back with replay, which applies its events to a machine restored from a snapshot.
+ * Reading stops at the first record that is incomplete or fails its checksum, which is where a crash
+ * interrupted the last write.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class PurchaseJournal implements CashListener, LayoutListener {
+    // Declaration of constants
+    public static final int MAGIC = 0x4A4D5650;
+    public static final int VERSION = 3;
+    public static final byte PURCHASE = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte CANCEL = 3;
+    public static final byte RESTOCK = 4;
+    public static final byte COLLECT = 5;
+    public static final byte RESERVE = 6;
+    public static final byte EPOCH = 7;
+    public static final byte GROUP = 8;
+    public static final byte SLOT = 9;
+    public static final byte REMOVE = 10;
+    public static final byte COMPOUND = 11;
+    private static final int HEADER = 4 + 1 + 8;
+    private static final int TRAILER = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAXIMUM_GROUP = BUFFER_SIZE / 2;
+    private static final int MAXIMUM_LENGTH = 1 + 8 + MAXIMUM_GROUP;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    // Declaration of variables
+    private final FileChannel channel;
+    private final Clock clock;
+    private final int batchSize;
+    private final long windowNanos;
+    private final CRC32 checksum = new CRC32();
+    private final ThreadLocal<Group> groups = ThreadLocal.withInitial(Group::new);
+    private ByteBuffer active = newBuffer();
+    private ByteBuffer spare = newBuffer();
+    private ByteBuffer target;
+    private Group group;
+    private int openGroups;
+    private int recordStart;
+    private int pending;
+    private long firstPending;
+    private boolean committing;
+    private boolean closed;
+    private IOException failure;
+    private long records;
+    private long commits;
+    private final Thread flusher;
+
+    /**
+     * The Group class holds the records of the logical event a thread is journaling, until the event ends.
+     */
+    private static final class Group {
+        // Declaration of variables
+        private final ByteBuffer records = ByteBuffer.allocate(MAXIMUM_GROUP).order(ByteOrder.LITTLE_ENDIAN);
+        private int depth;
+        private int count;
+    }
+
+    /**
+     * Constructs a new PurchaseJournal that appends to the given file, which is created if it does not exist.
+     * @param path is the file of the journal
+     * @param batchSize is the number of events that are committed together
+     * @param windowMillis is the longest time an event waits to be committed, or 0 to only commit full batches
+     * @throws IOException if the file cannot be opened
+     */
+    public PurchaseJournal (Path path, int batchSize, long windowMillis) throws IOException {
+        this(path, batchSize, windowMillis, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a new PurchaseJournal that appends to the given file and reads the time of the events from a clock.
+     * @param path is the file of the journal
+     * @param batchSize is the number of events that are committed together
+     * @param windowMillis is the longest time an event waits to be committed, or 0 to only commit full batches
+     * @param clock is the clock that gives the time of every event
+     * @throws IOException if the file cannot be opened
+     */
+    public PurchaseJournal (Path path, int batchSize, long windowMillis, Clock clock) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.clock = clock;
+        this.batchSize = Math.max(1, batchSize);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+
+        if (channel.size() == 0) {
+            active.putInt(MAGIC).putInt(VERSION);
+            writeFully(active);
+            channel.force(false);
+        }
+
+        if (windowNanos > 0) {
+            flusher = new Thread(this::flushLoop, "machine-journal");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * This method will create an empty buffer for the records.
+     * @return the buffer
+     */
+    private static ByteBuffer newBuffer () {
+        return ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * This method will encode the kind of a denomination.
+     * @param denomination is the denomination
+     * @return 1 for a bill, 0 for anything else
+     */
+    static byte kindOf (Denomination denomination) {
+        return (byte) ("Bill".equalsIgnoreCase(denomination.getDenominationType()) ? 1 : 0);
+    }
+
+    /**
+     * This method will journal a purchase of several units of the item in a slot.
+     * @param slotNumber is the number of the slot
+     * @param itemId is the catalog ID of the item
+     * @param quantity is the number of units bought
+     * @param centavos is the price of a single unit, in centavos
+     */
+    public void purchase (int slotNumber, int itemId, int quantity, long centavos) {
+        boolean due;
+
+        synchronized (this) {
+            begin(PURCHASE, 20).putInt(slotNumber).putInt(itemId).putInt(quantity).putLong(centavos);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal money accepted from the consumer.
+     * @param denomination is the denomination of the cash
+     * @param quantity is the number of denominations accepted
+     */
+    public void deposit (Denomination denomination, int quantity) {
+        boolean due;
+
+        synchronized (this) {
+            begin(DEPOSIT, 13).putLong(denomination.getCentavos()).put(kindOf(denomination)).putInt(quantity);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal a cancelled transaction.
+     * @param centavos is the amount returned to the consumer, in centavos
+     */
+    public void cancel (long centavos) {
+        boolean due;
+
+        synchronized (this) {
+            begin(CANCEL, 8).putLong(centavos);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal units added to a slot.
+     * @param slotNumber is the number of the slot
+     * @param quantity is the number of units added
+     */
+    public void restock (int slotNumber, int quantity) {
+        boolean due;
+
+        synchronized (this) {
+            begin(RESTOCK, 8).putInt(slotNumber).putInt(quantity);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal the end of a restock visit, when the sales so far were sealed as an epoch.
+     */
+    public void epoch () {
+        boolean due;
+
+        synchronized (this) {
+            begin(EPOCH, 0);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal a collection of the machine reserve.
+     * @param centavos is the amount collected, in centavos
+     */
+    public void collect (long centavos) {
+        boolean due;
+
+        synchronized (this) {
+            begin(COLLECT, 8).putLong(centavos);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    @Override
+    public void countChanged (CashHolder holder, Denomination denomination, int previousCount, int newCount) {
+        boolean due;
+
+        synchronized (this) {
+            begin(RESERVE, 13).putLong(denomination.getCentavos()).put(kindOf(denomination)).putInt(newCount);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal the state of a slot after its layout changed. A failure to write the journal is
+     * logged instead of thrown, since it happens inside the change; the journal stays failed, so the machine
+     * refuses its next customer.
+     * @param machine is the vending machine whose layout changed
+     * @param slot is the slot that changed
+     */
+    @Override
+    public void layoutChanged (VendingMachine machine, Slot slot) {
+        int slotNumber = slot.getSlotNum();
+        Slot current = machine.getSlot(slotNumber);
+
+        if (current == null && machine instanceof SpecialVendingMachine)
+            current = ((SpecialVendingMachine) machine).getCompoundSlot(slotNumber);
+
+        try {
+            if (current instanceof CompoundSlot)
+                compound((CompoundSlot) current, machine.getCurrentItemCount());
+            else if (current == null)
+                remove(slotNumber, machine.getCurrentItemCount());
+            else if (current.getItem() != null)
+                slot(current, machine.getCurrentItemCount());
+        }
+        catch (UncheckedIOException | IllegalStateException e) {
+            MachineLog.error(() -> "ERROR: The layout of slot " + slotNumber + " was not journaled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method will journal a regular slot and the item in it.
+     * @param slot is the slot
+     * @param itemCount is the number of items of the machine
+     */
+    private void slot (Slot slot, int itemCount) {
+        byte[] name = nameOf(slot.getItem());
+        boolean due;
+
+        synchronized (this) {
+            ByteBuffer out = begin(SLOT, 12 + itemLength(name)).putInt(slot.getSlotNum()).putInt(itemCount).putInt(slot.getQuantity());
+            putItem(out, name, slot.getItem());
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal a regular slot that was removed from the machine.
+     * @param slotNumber is the number of the slot
+     * @param itemCount is the number of items of the machine
+     */
+    private void remove (int slotNumber, int itemCount) {
+        boolean due;
+
+        synchronized (this) {
+            begin(REMOVE, 8).putInt(slotNumber).putInt(itemCount);
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will journal a compound item with its recipe.
+     * @param slot is the compound slot
+     * @param itemCount is the number of items of the machine
+     */
+    private void compound (CompoundSlot slot, int itemCount) {
+        ArrayList<RequiredItem> recipe = slot.getRequiredItems();
+        byte[] name = nameOf(slot.getItem());
+        byte[][] names = new byte[recipe.size()][];
+        int payload = 12 + itemLength(name);
+        boolean due;
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = nameOf(recipe.get(i).getItem());
+            payload += itemLength(names[i]) + 4;
+        }
+
+        synchronized (this) {
+            ByteBuffer out = begin(COMPOUND, payload).putInt(slot.getSlotNum()).putInt(itemCount);
+
+            putItem(out, name, slot.getItem());
+            out.putInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                putItem(out, names[i], recipe.get(i).getItem());
+                out.putInt(recipe.get(i).getRequiredQuantity());
+            }
+            due = end();
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will encode the name of an item.
+     * @param item is the item
+     * @return the name in UTF-8
+     * @throws IllegalStateException if the name is too long for a record
+     */
+    private static byte[] nameOf (Item item) {
+        byte[] name = item.getName().getBytes(StandardCharsets.UTF_8);
+
+        if (name.length > Short.MAX_VALUE)
+            throw new IllegalStateException("The name of an item is too long for the journal");
+        return name;
+    }
+
+    /**
+     * This method will compute the length of an item in a record.
+     * @param name is the name of the item in UTF-8
+     * @return the length in bytes
+     */
+    private static int itemLength (byte[] name) {
+        return 2 + name.length + 8 + 8;
+    }
+
+    /**
+     * This method will write an item to a record.
+     * @param out is the buffer of the record
+     * @param name is the name of the item in UTF-8
+     * @param item is the item
+     */
+    private static void putItem (ByteBuffer out, byte[] name, Item item) {
+        out.putShort((short) name.length).put(name).putLong(item.getPriceCentavos()).putDouble(item.getCalories());
+    }
+
+    /**
+     * This method will read an item written by putItem.
+     * @param in is the buffer of the record
+     * @return a new item with the name, price and calories of the record
+     */
+    private static Item getItem (ByteBuffer in) {
+        byte[] name = new byte[in.getShort()];
+
+        in.get(name);
+        Item item = new Item(new String(name, StandardCharsets.UTF_8), 0, 0);
+        item.setPriceCentavos(in.getLong());
+        item.setCalories(in.getDouble());
+        return item;
+    }
+
+    /**
+     * This method will start a logical event made of several records, such as a purchase and the changes
+     * to the reserve it causes. The records journaled by the current thread until endGroup are appended
+     * together as one GROUP record. Groups can be nested; only the outermost one is appended.
+     */
+    public synchronized void beginGroup () {
+        if (groups.get().depth++ == 0)
+            openGroups++;
+    }
+
+    /**
+     * This method will end the logical event started by beginGroup on the current thread,
+     * appending its records as one GROUP record.
+     */
+    public void endGroup () {
+        boolean due;
+
+        synchronized (this) {
+            Group ending = groups.get();
+
+            if (ending.depth == 0)
+                throw new IllegalStateException("No journal group was started");
+            if (--ending.depth > 0)
+                return;
+            openGroups--;
+            if (ending.count == 0)
+                return;
+
+            try {
+                begin(GROUP, ending.records.position()).put(ending.records.array(), 0, ending.records.position());
+                due = end(ending.count);
+            }
+            finally {
+                ending.records.clear();
+                ending.count = 0;
+            }
+        }
+        if (due)
+            commitBatch();
+    }
+
+    /**
+     * This method will start a record, making room for it first if needed. The record goes to the group
+     * of the current thread if it has one open, or else to the active buffer.
+     * The caller must hold the lock of the journal.
+     * @param type is the type of the record
+     * @param payload is the length of the payload, in bytes
+     * @return the buffer of the record, positioned where the payload goes
+     */
+    private ByteBuffer begin (byte type, int payload) {
+        if (closed)
+            throw new IllegalStateException("The journal is closed");
+
+        group = (openGroups > 0) ? groups.get() : null;
+        if (group != null && group.depth > 0) {
+            if (group.records.remaining() < HEADER + payload + TRAILER)
+                throw new IllegalStateException("Too many records in one journal group");
+            return start(group.records, type, payload);
+        }
+        group = null;
+        checkWritable();
+
+        // Only happens when a whole buffer of events is waiting for the time window
+        while (active.remaining() < HEADER + payload + TRAILER) {
+            if (committing) {
+                waitForCommit();
+                continue;
+            }
+            try {
+                writeFully(active);
+            }
+            catch (IOException e) {
+                fail(e);
+                checkWritable();
+            }
+        }
+        return start(active, type, payload);
+    }
+
+    /**
+     * This method will write the length, type and time of a record.
+     * The caller must hold the lock of the journal.
+     * @param buffer is the buffer of the record
+     * @param type is the type of the record
+     * @param payload is the length of the payload, in bytes
+     * @return the buffer, positioned where the payload goes
+     */
+    private ByteBuffer start (ByteBuffer buffer, byte type, int payload) {
+        target = buffer;
+        recordStart = buffer.position();
+        return buffer.putInt(1 + 8 + payload).put(type).putLong(clock.millis());
+    }
+
+    /**
+     * This method will finish the record that was started by begin, by adding its checksum.
+     * The caller must hold the lock of the journal.
+     * @return true if a batch is complete and should be committed
+     */
+    private boolean end () {
+        return end(1);
+    }
+
+    /**
+     * This method will finish the record that was started by begin, by adding its checksum.
+     * The caller must hold the lock of the journal.
+     * @param events is the number of events in the record
+     * @return true if a batch is complete and should be committed
+     */
+    private boolean end (int events) {
+        checksum.reset();
+        checksum.update(target.array(), recordStart + 4, target.position() - recordStart - 4);
+        target.putInt((int) checksum.getValue());
+
+        if (group != null) {
+            group.count++;
+            return false;
+        }
+
+        records += events;
+        if (++pending == 1) {
+            firstPending = System.nanoTime();
+            notifyAll();
+        }
+        return pending >= batchSize;
+    }
+
+    /**
+     * This method will write every waiting event to the file and force it to the disk.
+     * Commits happen one at a time and in order, and events can be added while the file is being forced.
+     * @throws IOException if the file cannot be written or forced, now or by an earlier commit
+     */
+    public void commit () throws IOException {
+        ByteBuffer full;
+
+        synchronized (this) {
+            while (committing)
+                waitForCommit();
+            if (failure != null)
+                throw new IOException("The journal can no longer be written", failure);
+            if (pending == 0 && active.position() == 0)
+                return;
+
+            committing = true;
+            full = active;
+            active = spare;
+            spare = null;
+            pending = 0;
+        }
+
+        boolean committed = false;
+        try {
+            writeFully(full);
+            channel.force(false);
+            committed = true;
+        }
+        catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        finally {
+            synchronized (this) {
+                full.clear();
+                spare = full;
+                committing = false;
+                if (committed)
+                    commits++;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * This method will commit a complete batch for the event that completed it.
+     * @throws UncheckedIOException if the batch cannot be committed
+     */
+    private void commitBatch () {
+        try {
+            commit();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("The journal can no longer be written", e);
+        }
+    }
+
+    /**
+     * This method will stop the journal after a write or fsync failed. Nothing is written to the file afterwards.
+     * @param e is the failure
+     */
+    private synchronized void fail (IOException e) {
+        if (failure == null) {
+            failure = e;
+            MachineLog.error(() -> "The purchase journal failed and stopped: " + e);
+        }
+    }
+
+    /**
+     * This method will check that the journal can still be written, before an event changes the machine.
+     * @throws UncheckedIOException if an earlier write or fsync of the journal failed
+     */
+    public synchronized void checkWritable () {
+        if (failure != null)
+            throw new UncheckedIOException("The journal can no longer be written", failure);
+    }
+
+    /**
+     * This method will check if a write or fsync of the journal failed.
+     * @return true if the journal stopped because of a failure
+     */
+    public synchronized boolean isFailed () {
+        return failure != null;
+    }
+
+    /**
+     * This method will write the contents of a buffer to the file and empty the buffer.
+     * @param buffer is the buffer to write
+     * @throws IOException if the file cannot be written
+     */
+    private void writeFully (ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * This method will wait until the commit in progress is done.
+     * The caller must hold the lock of the journal.
+     */
+    private void waitForCommit () {
+        try {
+            wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        }
+    }
+
+    /**
+     * This method will commit the waiting events whenever the oldest of them is as old as the time window.
+     * It runs on the background thread of the journal.
+     */
+    private void flushLoop () {
+        while (true) {
+            synchronized (this) {
+                try {
+                    long remaining = 0;
+
+                    while (!closed && (pending == 0 || (remaining = firstPending + windowNanos - System.nanoTime()) > 0)) {
+                        if (pending == 0)
+                            wait();
+                        else
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                if (closed)
+                    return;
+            }
+            try {
+                commit();
+            }
+            catch (IOException e) {
+                // The failure is kept and thrown to the next event
+                return;
+            }
+        }
+    }
+
+    /**
+     * This method will apply every event of a journal file to a vending machine, in order.
+     * The machine should not have a journal attached, so that the events are not journaled again.
+     * @param path is the file of the journal
+     * @param machine is the vending machine the events are applied to
+     * @return the length of the valid part of the file, which is shorter than the file if its end was torn by a crash
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static long replay (Path path, VendingMachine machine) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            in.flip();
+            if (!fill(channel, in, 8) || in.getInt() != MAGIC || in.getInt() != VERSION)
+                throw new IOException("Not a purchase journal: " + path);
+
+            machine.beginReplay();
+            try {
+                return replayRecords(channel, in, machine);
+            }
+            finally {
+                machine.endReplay();
+            }
+        }
+    }
+
+    /**
+     * This method will apply the records of a journal, after its magic number and version.
+     * @param channel is the file being read
+     * @param in is the read buffer, positioned at the first record
+     * @param machine is the vending machine the events are applied to
+     * @return the length of the valid part of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static long replayRecords (FileChannel channel, ByteBuffer in, VendingMachine machine) throws IOException {
+        CRC32 crc = new CRC32();
+        long valid = 8;
+
+        while (fill(channel, in, 4)) {
+            int length = in.getInt(in.position());
+
+            if (length < 1 + 8 || length > MAXIMUM_LENGTH || !fill(channel, in, 4 + length + TRAILER))
+                break;
+
+            int start = in.position() + 4;
+            crc.reset();
+            crc.update(in.array(), start, length);
+            if (in.getInt(start + length) != (int) crc.getValue())
+                break;
+
+            in.position(start);
+            apply(in, start + length, machine);
+            in.position(start + length + TRAILER);
+            valid += 4 + length + TRAILER;
+        }
+        return valid;
+    }
+
+    /**
+     * This method will make sure the read buffer holds at least the given number of bytes, reading more of the file if needed.
+     * @param channel is the file being read
+     * @param in is the read buffer, ready to be read
+     * @param needed is the number of bytes needed
+     * @return true if the bytes are in the buffer, false if the file ends first
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean fill (FileChannel channel, ByteBuffer in, int needed) throws IOException {
+        if (in.remaining() >= needed)
+            return true;
+
+        in.compact();
+        while (in.position() < needed && channel.read(in) > 0);
+        in.flip();
+        return in.remaining() >= needed;
+    }
+
+    /**
+     * This method will decode one record and apply it to a vending machine.
+     * @param in is the read buffer, positioned at the type of the record
+     * @param end is the position after the payload of the record
+     * @param machine is the vending machine the event is applied to
+     */
+    private static void apply (ByteBuffer in, int end, VendingMachine machine) {
+        byte type = in.get();
+        long time = in.getLong();
+
+        switch (type) {
+            case PURCHASE:
+                machine.replayPurchase(in.getInt(), in.getInt(), in.getInt(), in.getLong(), time);
+                break;
+            case DEPOSIT:
+                machine.replayDeposit(denomination(in.getLong(), in.get()), in.getInt());
+                break;
+            case CANCEL:
+                machine.replayCancel();
+                break;
+            case RESTOCK:
+                machine.replayRestock(in.getInt(), in.getInt());
+                break;
+            case EPOCH:
+                machine.replayEpoch(time);
+                break;
+            case GROUP:
+                // Checked as a whole by the checksum of the group
+                while (in.position() < end) {
+                    int length = in.getInt();
+                    int next = in.position() + length + TRAILER;
+
+                    apply(in, in.position() + length, machine);
+                    in.position(next);
+                }
+                break;
+            case RESERVE:
+                machine.replayReserve(denomination(in.getLong(), in.get()), in.getInt());
+                break;
+            case SLOT: {
+                int slotNumber = in.getInt();
+                int itemCount = in.getInt();
+                int quantity = in.getInt();
+
+                machine.replaySlot(slotNumber, itemCount, getItem(in), quantity);
+                break;
+            }
+            case REMOVE:
+                machine.replayRemove(in.getInt(), in.getInt());
+                break;
+            case COMPOUND: {
+                int slotNumber = in.getInt();
+                int itemCount = in.getInt();
+                Item item = getItem(in);
+                int count = in.getInt();
+                ArrayList<RequiredItem> recipe = new ArrayList<RequiredItem>(count);
+
+                for (int i = 0; i < count; i++) {
+                    Item required = machine.replayItem(getItem(in));
+                    recipe.add(new RequiredItem(required, in.getInt()));
+                }
+                machine.replayCompound(slotNumber, itemCount, item, recipe);
+                break;
+            }
+            default:
+                // COLLECT only moves money out of the reserve, which the reserve events already cover
+                break;
+        }
+    }
+
+    /**
+     * This method will turn a value and kind read from the journal back into a denomination.
+     * @param centavos is the value of the denomination, in centavos
+     * @param kind is 1 for a bill, 0 for a coin
+     * @return the denomination
+     */
+    private static Denomination denomination (long centavos, byte kind) {
+        return Denomination.ofCentavos(centavos, kind == 1 ? "Bill" : "Coin");
+    }
+
+    /**
+     * This method will cut a journal file back to its valid part, removing a record torn by a crash.
+     * @param path is the file of the journal
+     * @param length is the length of the valid part, as given by replay
+     * @throws IOException if the file cannot be changed
+     */
+    public static void truncate (Path path, long length) throws IOException {
+        if (Files.size(path) <= length)
+            return;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * This method will retrieve the number of events journaled so far.
+     * @return the number of events
+     */
+    public synchronized long getRecords () {
+        return records;
+    }
+
+    /**
+     * This method will retrieve the number of commits, and so of fsyncs, done so far.
+     * @return the number of commits
+     */
+    public synchronized long getCommits () {
+        return commits;
+    }
+
+    /**
+     * This method will commit the waiting events and close the file.
+     * No event can be journaled afterwards.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close () throws IOException {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            commit();
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
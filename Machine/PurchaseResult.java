@@ -0,0 +1,113 @@
+/**
+ * The PurchaseResult class holds the outcome of a purchase: its status, the item that was bought,
+ * the number of units, the amount paid and the change that was given.
+ *
+ * A PurchaseResult cannot be changed once it is created, so it can be handed to any caller,
+ * such as the Swing panels, a benchmark or a batch job. Whether the money received was returned
+ * after a failed purchase depends only on its status, as described in PurchaseStatus.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public final class PurchaseResult {
+    // Declaration of variables
+    private final PurchaseStatus status;
+    private final Item item;
+    private final int quantity;
+    private final long totalCentavos;
+    private final ChangePlan change;
+
+    /**
+     * Constructs a PurchaseResult with the given outcome.
+     * @param status is the outcome of the purchase
+     * @param item is the item that was bought, or null
+     * @param quantity is the number of units that were bought
+     * @param totalCentavos is the amount paid, in centavos
+     * @param change is the change that was given, or null
+     */
+    private PurchaseResult (PurchaseStatus status, Item item, int quantity, long totalCentavos, ChangePlan change) {
+        this.status = status;
+        this.item = item;
+        this.quantity = quantity;
+        this.totalCentavos = totalCentavos;
+        this.change = change;
+    }
+
+    /**
+     * This method will create the result of a successful purchase.
+     * @param item is the item that was bought, or null for a cart of several items
+     * @param quantity is the number of units that were bought
+     * @param totalCentavos is the amount paid, in centavos
+     * @param change is the change that was given
+     * @return the result of the purchase
+     */
+    public static PurchaseResult success (Item item, int quantity, long totalCentavos, ChangePlan change) {
+        return new PurchaseResult(PurchaseStatus.SUCCESS, item, quantity, totalCentavos, change);
+    }
+
+    /**
+     * This method will create the result of a purchase that did not go through.
+     * @param status is the reason the purchase failed
+     * @return the result of the purchase
+     */
+    public static PurchaseResult failure (PurchaseStatus status) {
+        return new PurchaseResult(status, null, 0, 0, null);
+    }
+
+    /**
+     * This method will retrieve the outcome of the purchase.
+     * @return the status of the purchase
+     */
+    public PurchaseStatus getStatus () {
+        return status;
+    }
+
+    /**
+     * This method will check if the purchase went through.
+     * @return true if the status is SUCCESS, false otherwise
+     */
+    public boolean isSuccessful () {
+        return status == PurchaseStatus.SUCCESS;
+    }
+
+    /**
+     * This method will retrieve the item that was bought.
+     * @return the item, or null if the purchase failed or was a cart of several items
+     */
+    public Item getItem () {
+        return item;
+    }
+
+    /**
+     * This method will retrieve the number of units that were bought.
+     * @return the quantity bought, or 0 if the purchase failed
+     */
+    public int getQuantity () {
+        return quantity;
+    }
+
+    /**
+     * This method will retrieve the amount paid for the purchase.
+     * @return the amount paid, in centavos
+     */
+    public long getTotalCentavos () {
+        return totalCentavos;
+    }
+
+    /**
+     * This method will retrieve the coins and bills given as change.
+     * @return the change that was given, or null if the purchase failed
+     */
+    public ChangePlan getChange () {
+        return change;
+    }
+
+    /**
+     * This method will retrieve the amount of change that was given.
+     * @return the change, in centavos
+     */
+    public long getChangeCentavos () {
+        return (change == null) ? 0 : change.getTotalCentavos();
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * The PurchaseStatus enum lists the outcomes of a purchase made through the vending machine.
+ *
+ * Regular purchases, compound purchases and cart checkouts fail the same way. When the machine cannot give
+ * the change, the money received is returned to the destination of the purchase. After any other failure the
+ * money stays in the machine, so the consumer can choose another item or cancel the transaction.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public enum PurchaseStatus {
+    /** The items were bought and the change was given. */
+    SUCCESS,
+    /** The slot number does not belong to a slot that holds an item. */
+    SLOT_NOT_FOUND,
+    /** The quantity asked for is zero or negative, or the cart is empty. */
+    INVALID_QUANTITY,
+    /** The slot, or an ingredient of a compound item, does not have enough stock. */
+    INSUFFICIENT_QUANTITY,
+    /** The machine reserve cannot pay the change. The money received has been returned. */
+    INSUFFICIENT_CHANGE,
+    /** The money received does not cover the price. The money received stays in the machine. */
+    INSUFFICIENT_BALANCE
+}
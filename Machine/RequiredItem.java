@@ -11,6 +11,7 @@
 public class RequiredItem {
     private final int REQUIRED_QUANTITY;
     private Item item;
+    private int itemId = -1;
 
 
     /**
@@ -46,6 +47,26 @@ public class RequiredItem {
         return item;
     }
 
+    /**
+     * Gets the catalog ID of the required item.
+     * 
+     * @return the catalog ID, or -1 if it has not been resolved by a machine
+     */
+
+    int getItemId() {
+        return itemId;
+    }
+
+    /**
+     * Sets the catalog ID of the required item.
+     * 
+     * @param itemId the catalog ID given by the vending machine
+     */
+
+    void setItemId(int itemId) {
+        this.itemId = itemId;
+    }
+
     /**
      * Checks if this RequiredItem is equal to another item.
      * Two RequiredItem objects are considered equal if their corresponding items are equal.
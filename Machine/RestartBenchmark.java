@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The RestartBenchmark class measures how long a SpecialVendingMachine takes to restart from its MachineStore
+ * after a given number of recorded transactions, first by replaying the whole journal from the first snapshot,
+ * then from a checkpoint with only a short journal tail to replay.
+ *
+ * The machine is driven through the headless purchase API with regular and compound purchases paid with bills,
+ * and is restocked whenever a slot runs out. After every restart, the restored machine is compared with the
+ * machine as it was before, and the result is printed as CSV. The transactions of a snapshot stay in the
+ * segment of the store until they are looked at, so the time to read them back is printed on its own.
+ *
+ * Usage: java RestartBenchmark [transactions=1000000] [tail=10000] [snapshotEvery=0] [restarts=3]
+ *                              [batch=256] [window=5] [directory=restart-benchmark] [seed=42]
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class RestartBenchmark {
+    // Declaration of constants
+    private static final int SLOTS = 16;
+    private static final int RECIPE = 3;
+    private static final Denomination[] BILLS = {new Denomination(50, "Bill"), new Denomination(100, "Bill")};
+
+    /**
+     * Runs the benchmark.
+     * @param args is the optional list of parameters, written as name=value
+     * @throws IOException if the store cannot be written or read
+     */
+    public static void main (String[] args) throws IOException {
+        int transactions = Integer.parseInt(BenchmarkHarness.param(args, "transactions", "1000000"));
+        int tail = Integer.parseInt(BenchmarkHarness.param(args, "tail", "10000"));
+        long snapshotEvery = Long.parseLong(BenchmarkHarness.param(args, "snapshotEvery", "0"));
+        int restarts = Integer.parseInt(BenchmarkHarness.param(args, "restarts", "3"));
+        int batch = Integer.parseInt(BenchmarkHarness.param(args, "batch", "256"));
+        long window = Long.parseLong(BenchmarkHarness.param(args, "window", "5"));
+        Path directory = Paths.get(BenchmarkHarness.param(args, "directory", "restart-benchmark"));
+        Random random = new Random(Long.parseLong(BenchmarkHarness.param(args, "seed", "42")));
+
+        MachineLog.setLevel(LogLevel.OFF);
+        System.out.println("phase,transactions,snapshotBytes,segmentBytes,journalBytes,restartMs,historyMs,matches");
+
+        // The whole history is in the journal of the first generation
+        MachineStore store = MachineStore.create(directory, CoreBenchmark.build(SLOTS, 50, 200, RECIPE), batch, window, 0);
+        long start = System.nanoTime();
+        serve(store, transactions, random);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String expected = state(store.getMachine());
+        store.close();
+        System.err.println(String.format("Recorded %d transactions in %.1f s", transactions, seconds));
+
+        store = restart("fullReplay", transactions, directory, batch, window, snapshotEvery, restarts, expected);
+
+        // Only the transactions after the checkpoint are in the journal
+        store.checkpoint();
+        serve(store, tail, random);
+        expected = state(store.getMachine());
+        store.close();
+
+        store = restart("snapshotAndTail", transactions + tail, directory, batch, window, snapshotEvery, restarts, expected);
+        store.close();
+    }
+
+    /**
+     * This method will restart the machine from its store a number of times and print how long it took.
+     * @param phase is the name of the phase
+     * @param transactions is the number of transactions recorded by the machine
+     * @param directory is the directory of the store
+     * @param batch is the number of events the journal commits together
+     * @param window is the longest time an event waits to be committed
+     * @param snapshotEvery is the number of journal events after which a checkpoint is due
+     * @param restarts is the number of restarts to time
+     * @param expected is the state of the machine before the restart
+     * @return the store of the last restart, still open
+     * @throws IOException if the store cannot be read
+     */
+    private static MachineStore restart (String phase, int transactions, Path directory, int batch, long window,
+                                         long snapshotEvery, int restarts, String expected) throws IOException {
+        MachineStore store = null;
+
+        for (int r = 0; r < restarts; r++) {
+            if (store != null)
+                store.close();
+
+            long start = System.nanoTime();
+            store = MachineStore.open(directory, batch, window, snapshotEvery);
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            // The first look at the history reads the transactions of the snapshot from the segment
+            start = System.nanoTime();
+            store.getMachine().getTransactionRecord().getAllTransactions().get(0);
+            double history = (System.nanoTime() - start) / 1e6;
+
+            long generation = store.getGeneration();
+            System.out.println(phase + "," + transactions + ","
+                + Files.size(MachineStore.snapshotFile(directory, generation)) + ","
+                + Files.size(MachineStore.segmentFile(directory)) + ","
+                + Files.size(MachineStore.journalFile(directory, generation)) + ","
+                + String.format("%.1f", millis) + "," + String.format("%.1f", history) + ","
+                + expected.equals(state(store.getMachine())));
+        }
+        return store;
+    }
+
+    /**
+     * This method will record a number of successful purchases on the machine of a store, taking checkpoints when they are due.
+     * @param store is the store of the machine
+     * @param transactions is the number of successful purchases
+     * @param random is the source of random choices
+     * @throws IOException if a checkpoint cannot be written
+     */
+    private static void serve (MachineStore store, int transactions, Random random) throws IOException {
+        SpecialVendingMachine machine = store.getMachine();
+        CompoundSlot compound = machine.getCompoundItem("Combo");
+        CashHolder customer = new CashHolder("Customer");
+        int done = 0;
+
+        for (long session = 0; done < transactions; session++) {
+            boolean combo = random.nextInt(5) == 0;
+            Slot slot = machine.getSlot(1 + random.nextInt(SLOTS));
+
+            if (slot.getQuantity() == 0 || machine.computeCompoundQuantity(compound) == 0)
+                restock(machine);
+
+            machine.acceptMoney(BILLS[random.nextInt(BILLS.length)], 1);
+            PurchaseResult result = combo ? machine.purchaseCompound(compound.getSlotNum(), 1, customer)
+                                          : machine.purchase(slot.getSlotNum(), 1, customer);
+
+            if (result.isSuccessful())
+                done++;
+            else
+                machine.cancelTransaction(customer);
+
+            // Put the change back into the reserve so the machine does not run out of coins
+            if ((session & 63) == 0)
+                customer.transferAll(machine.getMachineReserve());
+            store.checkpointIfDue();
+        }
+    }
+
+    /**
+     * This method will fill every regular slot of the machine back up in one restock visit.
+     * @param machine is the vending machine
+     */
+    private static void restock (SpecialVendingMachine machine) {
+        for (Slot slot : machine.getSlots())
+            if (slot.getItem() != null && !slot.isFull())
+                machine.addItemQuantity(slot.getItem().getName(), slot.getMaximum() - slot.getQuantity());
+        machine.sealEpoch();
+    }
+
+    /**
+     * This method will describe the state of a machine, to compare it before and after a restart.
+     * @param machine is the vending machine
+     * @return the stock of every slot, the money held, the sales totals and the history of transactions
+     */
+    private static String state (SpecialVendingMachine machine) {
+        TransactionRecord record = machine.getTransactionRecord();
+        List<Transaction> history = record.getAllTransactions();
+        StringBuilder state = new StringBuilder();
+        long digest = 0;
+
+        for (Transaction transaction : history)
+            digest = digest * 31 + transaction.getItemId() * 7919L + transaction.getQuantity() + transaction.getPriceCentavos();
+        state.append(machine.getMachineReserve().getTotalCentavos()).append('/')
+             .append(machine.getConsumer().getTotalCentavos()).append('/')
+             .append(record.getEpochCount()).append('/')
+             .append(history.size()).append('/').append(record.getTransactions().size()).append('/').append(digest);
+        for (Slot slot : machine.getSlots())
+            state.append(';').append(slot.getQuantity()).append(':').append(record.getQuantitySold(slot.getItemId()))
+                 .append(':').append(record.getAllTimeQuantitySold(slot.getItemId()))
+                 .append(':').append(record.getAllTimeTotalCentavos(slot.getItemId()))
+                 .append(':').append(record.getQuantitySoldLastHour(slot.getItemId()));
+        for (CompoundSlot slot : machine.getCompoundSlots())
+            state.append(';').append(machine.computeCompoundQuantity(slot)).append(':')
+                 .append(record.getAllTimeQuantitySold(slot.getItemId()));
+        for (int i = 0; i < machine.getMachineReserve().getDenominationSlots(); i++)
+            if (machine.getMachineReserve().getCountAt(i) > 0)
+                state.append(';').append(machine.getMachineReserve().getDenominationAt(i).getCentavos())
+                     .append('x').append(machine.getMachineReserve().getCountAt(i));
+        return state.toString();
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The SalesRollup class keeps the units sold and the revenue of every item in time buckets at several
+ * resolutions: the last 60 minutes, the last 24 hours and the last 31 days.
+ *
+ * Every resolution is a ring buffer of a fixed number of buckets per item. Adding a sale only updates
+ * one bucket per resolution, reusing the oldest bucket when a new period starts, and a query adds up
+ * at most one ring of buckets. Both take the same time however long the sales history is.
+ *
+ * Times are in milliseconds since the epoch, shifted by the offset of the local time zone so that
+ * hours and days start at local midnight.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class SalesRollup {
+
+    /**
+     * The Resolution enum lists the sizes of the buckets, with the number of buckets that are kept.
+     */
+    public enum Resolution {
+        /** One bucket per minute, for the last hour. */
+        MINUTE(60000L, 60),
+        /** One bucket per hour, for the last day. */
+        HOUR(3600000L, 24),
+        /** One bucket per day, for the last month. */
+        DAY(86400000L, 31);
+
+        private final long width;
+        private final int buckets;
+
+        /**
+         * Constructs a resolution.
+         * @param width is the length of a bucket, in milliseconds
+         * @param buckets is the number of buckets that are kept
+         */
+        Resolution (long width, int buckets) {
+            this.width = width;
+            this.buckets = buckets;
+        }
+
+        /**
+         * This method will retrieve the number of buckets that are kept.
+         * @return the number of buckets
+         */
+        public int getBuckets () {
+            return buckets;
+        }
+    }
+
+    /**
+     * The Ring class holds the buckets of one item at one resolution.
+     */
+    private static final class Ring {
+        private final long[] periods;
+        private final int[] units;
+        private final long[] revenue;
+
+        /**
+         * Constructs an empty ring.
+         * @param buckets is the number of buckets
+         */
+        private Ring (int buckets) {
+            periods = new long[buckets];
+            units = new int[buckets];
+            revenue = new long[buckets];
+            Arrays.fill(periods, Long.MIN_VALUE);
+        }
+    }
+
+    // Declaration of variables
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+    private Ring[][] rings = new Ring[0][];
+
+    /**
+     * This method will add a sale to the buckets of its item.
+     * @param itemId is the catalog ID of the item
+     * @param localTime is the time of the sale in local milliseconds
+     * @param quantity is the number of units sold
+     * @param centavos is the amount paid, in centavos
+     */
+    public void add (int itemId, long localTime, int quantity, long centavos) {
+        if (itemId >= rings.length)
+            rings = Arrays.copyOf(rings, Math.max(itemId + 1, rings.length * 2));
+        if (rings[itemId] == null) {
+            rings[itemId] = new Ring[RESOLUTIONS.length];
+            for (int r = 0; r < RESOLUTIONS.length; r++)
+                rings[itemId][r] = new Ring(RESOLUTIONS[r].buckets);
+        }
+
+        for (int r = 0; r < RESOLUTIONS.length; r++) {
+            Ring ring = rings[itemId][r];
+            long period = Math.floorDiv(localTime, RESOLUTIONS[r].width);
+            int index = (int) Math.floorMod(period, (long) RESOLUTIONS[r].buckets);
+
+            if (ring.periods[index] != period) {
+                if (ring.periods[index] > period)
+                    continue;
+                ring.periods[index] = period;
+                ring.units[index] = 0;
+                ring.revenue[index] = 0;
+            }
+            ring.units[index] += quantity;
+            ring.revenue[index] = Money.add(ring.revenue[index], centavos);
+        }
+    }
+
+    /**
+     * This method will count the units of an item sold in the latest buckets of a resolution.
+     * @param itemId is the catalog ID of the item
+     * @param resolution is the size of the buckets
+     * @param buckets is the number of buckets to add up, including the current one
+     * @param localNow is the current time in local milliseconds
+     * @return the number of units sold in that window
+     */
+    public int getUnits (int itemId, Resolution resolution, int buckets, long localNow) {
+        Ring ring = ring(itemId, resolution);
+        int total = 0;
+
+        if (ring == null)
+            return 0;
+
+        long current = Math.floorDiv(localNow, resolution.width);
+        for (int i = 0; i < ring.periods.length; i++)
+            if (ring.periods[i] <= current && ring.periods[i] > current - Math.min(buckets, resolution.buckets))
+                total += ring.units[i];
+        return total;
+    }
+
+    /**
+     * This method will add up the revenue of an item in the latest buckets of a resolution.
+     * @param itemId is the catalog ID of the item
+     * @param resolution is the size of the buckets
+     * @param buckets is the number of buckets to add up, including the current one
+     * @param localNow is the current time in local milliseconds
+     * @return the revenue of that window, in centavos
+     */
+    public long getRevenue (int itemId, Resolution resolution, int buckets, long localNow) {
+        Ring ring = ring(itemId, resolution);
+        long total = 0;
+
+        if (ring == null)
+            return 0;
+
+        long current = Math.floorDiv(localNow, resolution.width);
+        for (int i = 0; i < ring.periods.length; i++)
+            if (ring.periods[i] <= current && ring.periods[i] > current - Math.min(buckets, resolution.buckets))
+                total = Money.add(total, ring.revenue[i]);
+        return total;
+    }
+
+    /**
+     * This method will write every bucket to a snapshot.
+     * @param out is the stream of the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    void writeTo (DataOutput out) throws IOException {
+        out.writeInt(rings.length);
+        for (Ring[] item : rings) {
+            out.writeBoolean(item != null);
+            if (item == null)
+                continue;
+            for (Ring ring : item) {
+                for (int i = 0; i < ring.periods.length; i++) {
+                    out.writeLong(ring.periods[i]);
+                    out.writeInt(ring.units[i]);
+                    out.writeLong(ring.revenue[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method will read every bucket back from a snapshot written by writeTo, replacing the current ones.
+     * @param in is the stream of the snapshot
+     * @throws IOException if the snapshot cannot be read
+     */
+    void readFrom (DataInput in) throws IOException {
+        rings = new Ring[in.readInt()][];
+        for (int itemId = 0; itemId < rings.length; itemId++) {
+            if (!in.readBoolean())
+                continue;
+            rings[itemId] = new Ring[RESOLUTIONS.length];
+            for (int r = 0; r < RESOLUTIONS.length; r++) {
+                Ring ring = new Ring(RESOLUTIONS[r].buckets);
+                for (int i = 0; i < ring.periods.length; i++) {
+                    ring.periods[i] = in.readLong();
+                    ring.units[i] = in.readInt();
+                    ring.revenue[i] = in.readLong();
+                }
+                rings[itemId][r] = ring;
+            }
+        }
+    }
+
+    /**
+     * This method will find the ring of an item at a resolution.
+     * @param itemId is the catalog ID of the item
+     * @param resolution is the size of the buckets
+     * @return the ring, or null if the item has no sales
+     */
+    private Ring ring (int itemId, Resolution resolution) {
+        if (itemId < 0 || itemId >= rings.length || rings[itemId] == null)
+            return null;
+        return rings[itemId][resolution.ordinal()];
+    }
+}
@@ -1,10 +1,16 @@
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The Slot class represents a slot that can hold a certain quantity of items.
  * 
  *  It tracks the slot number, the item stored in the slot, the quantity of the item,
- *  and the type of the item.
+ *  and the type of the item. Every unit in a slot is the same item, so only the
+ *  number of units is stored. Every change to the quantity is made while holding the lock
+ *  of the slot, which purchases also hold while they check and take stock.
+ *  Units taken by a purchase that is not complete yet are counted as reserved, so a restock
+ *  in the meantime leaves room for them to be put back.
  * 
  * @author Ampatin, Ian Kenneth J
  * @author Paredes, Bill Jethro P
@@ -15,9 +21,13 @@ public class Slot {
     private final int UPPER_LIMIT = 50;
     private final int MAXIMUM;
     private final int SLOT_NUM;
-    private ArrayList<Item> slotItems;
+    private volatile int quantity;
+    private int reserved;
     private Item item;
+    private int itemId = -1;
     private String itemType;
+    private final CopyOnWriteArrayList<SlotListener> listeners = new CopyOnWriteArrayList<SlotListener>();
+    private final ReentrantLock lock = new ReentrantLock();
 
 
     /**
@@ -42,17 +52,10 @@ public class Slot {
      */
     public Slot (int slotNum, ArrayList<Item> slotItem, int max) {
         this(slotNum, max);
-        //this.slotItems = slotItem;
 
-        if(this.validateQuantity(slotItem.size())) {
-            this.slotItems = slotItem;
-        }
-        else {
-            for (int i = 0; i < slotItem.size() && i < MAXIMUM; i++) {
-                this.slotItems.add(new Item(slotItem.get(i).getName(), slotItem.get(i).getPrice(), slotItem.get(i).getCalories()));
-                slotItem.remove(slotItem.size() - 1);
-            }
-        }
+        if (!slotItem.isEmpty())
+            this.item = slotItem.get(0);
+        this.quantity = Math.min(slotItem.size(), MAXIMUM);
     }
 
     /**
@@ -90,7 +93,48 @@ public class Slot {
     public Slot (int slotNum, int max) {
         SLOT_NUM = slotNum;
         MAXIMUM = (max < 10) ? 10 : (max > UPPER_LIMIT) ? UPPER_LIMIT : max;
-        slotItems = new ArrayList<Item>();
+        quantity = 0;
+    }
+
+    /**
+     * This method will register a listener that is told every time the quantity of the slot changes.
+     * A listener that is already registered is not added again. Listeners can be registered and removed while
+     * the quantity is changing; a change that is already running tells the listeners it started with.
+     * @param listener is the listener to register
+     */
+    public void addListener (SlotListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * This method will remove a listener that was registered with addListener.
+     * @param listener is the listener to remove
+     */
+    public void removeListener (SlotListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * This method will retrieve the lock that guards the quantity of the slot.
+     * @return the lock of the slot
+     */
+    ReentrantLock getLock () {
+        return lock;
+    }
+
+    /**
+     * This method will change the quantity of the slot and tell the listeners.
+     * The caller must hold the lock of the slot.
+     * @param quantity is the new quantity of the slot
+     */
+    private void changeQuantity (int quantity) {
+        int previous = this.quantity;
+        this.quantity = quantity;
+
+        if (previous != quantity) {
+            for (SlotListener listener : listeners)
+                listener.quantityChanged(this, previous, quantity);
+        }
     }
 
     /**
@@ -109,8 +153,7 @@ public class Slot {
      * @return is the quantity of the item
      */
     public int getQuantity () {
-        if (slotItems == null || slotItems.isEmpty()) return 0;
-        return slotItems.size();
+        return quantity;
     }
 
     /**
@@ -138,26 +181,69 @@ public class Slot {
     }
 
     /**
-     * This method will check if the slot is full (quantity equals maximum).
+     * This method will retrieve the catalog ID of the item in the slot.
+     * @return the catalog ID of the item, or -1 if the slot was not indexed by a machine
+     */
+    int getItemId () {
+        return itemId;
+    }
+
+    /**
+     * This method will set the catalog ID of the item in the slot.
+     * @param itemId is the catalog ID given by the vending machine
+     */
+    void setItemId (int itemId) {
+        this.itemId = itemId;
+    }
+
+    /**
+     * This method will retrieve the maximum quantity of items the slot can hold.
+     * @return the maximum quantity of the slot
+     */
+    int getMaximum () {
+        return MAXIMUM;
+    }
+
+    /**
+     * This method will retrieve the number of units taken by purchases that are not complete yet.
+     * @return the reserved quantity of the slot
+     */
+    int getReservedQuantity () {
+        lock.lock();
+        try {
+            return reserved;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method will check if the slot is full (quantity and reserved units equal maximum).
      * @return true if the slot is full, false otherwise
      */
     public boolean isFull () {
-        return slotItems.size() == MAXIMUM;
+        return quantity + reserved >= MAXIMUM;
     }
 
     /**
      * This method adds the specified quantity to the current quantity of the item in the slot,
-     * as long as it does not exceed the maximum quantity.
+     * as long as it does not exceed the maximum quantity together with the reserved units.
      * @param quantity is the quantity that will be added to the slot
      * @return true if the addition was successful, false otherwise
      */
     public boolean addQuantity (int quantity) {
-        if (quantity > 0 && this.getQuantity() + quantity <= MAXIMUM) {
-            for(int i = 0; i < quantity; i++)
-                slotItems.add(new Item(item.getName(), item.getPrice(), item.getCalories()));
-            return true;
+        lock.lock();
+        try {
+            if (item != null && quantity > 0 && this.quantity + reserved + quantity <= MAXIMUM) {
+                this.changeQuantity(this.quantity + quantity);
+                return true;
+            }
+            return false;
+        }
+        finally {
+            lock.unlock();
         }
-        return false;
     }
 
     /**
@@ -167,12 +253,58 @@ public class Slot {
      * @return true if the deduction was successful, false otherwise
      */
     public boolean deductQuantity (int quantity) {
-        if(quantity >= 0 && this.getQuantity() - quantity >= 0) {
-            for(int i = 0; i < quantity; i++)
-                slotItems.remove(this.getQuantity() - 1);
-            return true;
+        lock.lock();
+        try {
+            if(quantity >= 0 && this.quantity - quantity >= 0) {
+                this.changeQuantity(this.quantity - quantity);
+                return true;
+            }
+            return false;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method takes stock for a purchase that is not complete yet. The units are kept as reserved
+     * until the purchase is committed or released. The caller must hold the lock of the slot
+     * and must have checked that there is enough stock.
+     * @param quantity is the quantity to take
+     */
+    void reserveQuantity (int quantity) {
+        this.changeQuantity(this.quantity - quantity);
+        reserved += quantity;
+    }
+
+    /**
+     * This method gives up reserved units that were sold by a completed purchase.
+     * @param quantity is the quantity that was sold
+     */
+    void commitQuantity (int quantity) {
+        lock.lock();
+        try {
+            reserved -= quantity;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method puts back reserved units taken by a purchase that could not be completed.
+     * Restocks never fill the room kept for reserved units, so they always fit back in the slot.
+     * @param quantity is the quantity to put back
+     */
+    void restoreQuantity (int quantity) {
+        lock.lock();
+        try {
+            reserved -= quantity;
+            this.changeQuantity(this.quantity + quantity);
+        }
+        finally {
+            lock.unlock();
         }
-        return false;
     }
 
     /**
@@ -181,33 +313,32 @@ public class Slot {
      * @param quantity is the quantity to set
      */
     public void setItem (Item itemSub, int quantity) {
-        this.item = itemSub;
-        this.removeAllItems();
-        this.addQuantity(quantity);
+        lock.lock();
+        try {
+            this.item = itemSub;
+            this.removeAllItems();
+            this.addQuantity(quantity);
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * This method sets the quantity of the slot to the specified value.
-     * If the new quantity is greater than the current quantity, additional items are added.
-     * If the new quantity is less than the current quantity, excess items are removed.
+     * This method sets the quantity of the slot to the specified value,
+     * as long as it fits with the reserved units and the slot holds an item.
      * 
      * @param quantity  the new quantity to set
      */
 
     public void setQuantity (int quantity) {
-        if(this.validateQuantity(quantity)) {
-
-            
-            if (slotItems == null || slotItems == null) return;
-            
-            if(slotItems.size() > quantity) {
-                while (slotItems.size() != quantity)
-                this.deductQuantity(1);
-            }
-            else if (slotItems.size() < quantity) {
-                while (slotItems.size() != quantity)
-                this.addQuantity(1);
-            }
+        lock.lock();
+        try {
+            if(this.validateQuantity(quantity + reserved) && quantity >= 0 && (item != null || quantity == 0))
+                this.changeQuantity(quantity);
+        }
+        finally {
+            lock.unlock();
         }
     }
 
@@ -216,10 +347,13 @@ public class Slot {
      */
 
     public void removeAllItems() {
-        if (this.getQuantity() == 0) return;
-
-        while(slotItems.size() != 0) 
-            this.deductQuantity(1);
+        lock.lock();
+        try {
+            this.changeQuantity(0);
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     /**
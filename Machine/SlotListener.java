@@ -0,0 +1,18 @@
+/**
+ * The SlotListener interface provides a contract for classes that need to follow the stock of a Slot,
+ * such as compound items whose available quantity depends on the slots of their required items.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public interface SlotListener {
+
+    /**
+     * Called after the quantity held by a slot has changed.
+     * @param slot is the slot whose quantity changed
+     * @param previousQuantity is the quantity before the change
+     * @param newQuantity is the quantity after the change
+     */
+    public void quantityChanged (Slot slot, int previousQuantity, int newQuantity);
+}
@@ -156,7 +156,11 @@ public class SlotPanel extends JPanel implements ActionListener, MouseListener{
     @Override
     public void mouseEntered(MouseEvent e) {
         if(e.getSource() == GUI_Frame) {
-            if (itemSlot.getQuantity() > 0) {
+            if (itemSlot.getQuantity() > 0 && vendingMachine != null && !vendingMachine.isChangeAvailable(itemSlot.getItem().getPriceCentavos())) {
+                selectButton.setEnabled(false);
+                itemLabel.setText("Exact Change Only");
+            }
+            else if (itemSlot.getQuantity() > 0) {
                 selectButton.setEnabled(true);
                 itemLabel.setText(itemSlot.getItem().getName());
             }
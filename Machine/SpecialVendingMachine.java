@@ -1,4 +1,7 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The SpecialVendingMachine class represents a specialized vending machine that can handle compound items.
@@ -14,6 +17,9 @@ import java.util.ArrayList;
 
 public class SpecialVendingMachine extends VendingMachine{
     private ArrayList<CompoundSlot> compoundItems;
+    private HashMap<Integer, CompoundSlot> compoundsByNumber;
+    private CompoundSlot[] compoundsById;
+    private CompoundAvailability compoundAvailability;
 
     /**
      * Constructs a new SpecialVendingMachine with the given name, number of slots, and slot maximum.
@@ -26,6 +32,9 @@ public class SpecialVendingMachine extends VendingMachine{
     public SpecialVendingMachine(String name, int numOfSlots, int slotMaximum) {
         super(name, numOfSlots, slotMaximum);
         compoundItems = new ArrayList<CompoundSlot>();
+        compoundsByNumber = new HashMap<Integer, CompoundSlot>();
+        compoundsById = new CompoundSlot[0];
+        compoundAvailability = new CompoundAvailability();
     }
 
     /**
@@ -39,6 +48,10 @@ public class SpecialVendingMachine extends VendingMachine{
 
     public SpecialVendingMachine(String name, int numOfSlots, ArrayList<Item> itemList, int slotMaximum) {
         super(name, numOfSlots, itemList, slotMaximum);
+        compoundItems = new ArrayList<CompoundSlot>();
+        compoundsByNumber = new HashMap<Integer, CompoundSlot>();
+        compoundsById = new CompoundSlot[0];
+        compoundAvailability = new CompoundAvailability();
     }
 
     /**
@@ -49,10 +62,16 @@ public class SpecialVendingMachine extends VendingMachine{
      */
 
     public void addCompoundItem (Item item, ArrayList<RequiredItem> reqItems) {
-        addCompoundItem(item);
+        this.beginLayoutChange();
+        try {
+            addCompoundItem(item);
 
-        for (RequiredItem itemReq : reqItems) {
-            compoundItems.get(compoundItems.size() - 1).addRequiredItem(itemReq.getItem(), itemReq.getRequiredQuantity());
+            for (RequiredItem itemReq : reqItems) {
+                this.resolveItemId(compoundItems.get(compoundItems.size() - 1).addRequiredItem(itemReq.getItem(), itemReq.getRequiredQuantity()));
+            }
+        }
+        finally {
+            this.endLayoutChange();
         }
     }
 
@@ -63,15 +82,113 @@ public class SpecialVendingMachine extends VendingMachine{
      */
 
     public void addCompoundItem(Item item) {
-        System.out.println("Adding Compound Item...");
-        int slotNum = removeSlot();
-        this.increaseItemCount();
-        if(slotNum != 0) {
-            compoundItems.add(new CompoundSlot(slotNum, item));
-            System.out.println("Compound Item Successfully Added");
-            return;
+        MachineLog.debug("Adding Compound Item...");
+        this.beginLayoutChange();
+        try {
+            int slotNum = removeSlot();
+            this.increaseItemCount();
+            if(slotNum != 0) {
+                this.layoutChanged(this.placeCompound(slotNum, item));
+                MachineLog.info("Compound Item Successfully Added");
+                return;
+            }
+            MachineLog.warn("Compound Item not Added");
+        }
+        finally {
+            this.endLayoutChange();
         }
-        System.out.println("Compound Item not Added");
+    }
+
+    /**
+     * Creates the compound slot of an item at the given slot number and indexes it.
+     * 
+     * @param slotNum  the slot number of the compound item
+     * @param item     the main item of the compound item
+     * @return the new compound slot
+     */
+
+    private CompoundSlot placeCompound (int slotNum, Item item) {
+        CompoundSlot slot = new CompoundSlot(slotNum, item);
+        compoundItems.add(slot);
+        compoundsByNumber.put(slotNum, slot);
+        this.indexCompound(slot);
+        return slot;
+    }
+
+    /**
+     * Puts back a compound item at the slot number it had, when the machine is restored from a snapshot.
+     * The regular slot with that number is removed, and the price and calories of the item are kept as they are
+     * instead of being increased by the required items.
+     * 
+     * @param slotNum    the slot number of the compound item
+     * @param item       the main item of the compound item, with its final price and calories
+     * @param reqItems   the required items and their required quantities
+     */
+
+    void restoreCompound (int slotNum, Item item, ArrayList<RequiredItem> reqItems) {
+        long price = item.getPriceCentavos();
+        double calories = item.getCalories();
+
+        this.dropSlot(slotNum);
+        CompoundSlot slot = this.placeCompound(slotNum, item);
+
+        for (RequiredItem itemReq : reqItems)
+            this.resolveItemId(slot.addRequiredItem(itemReq.getItem(), itemReq.getRequiredQuantity()));
+
+        item.setPriceCentavos(price);
+        item.setCalories(calories);
+    }
+
+    /**
+     * Applies a compound item read from the journal: a new compound item takes the slot number it had,
+     * and an existing one is given the name, price and calories of the record.
+     * 
+     * @param slotNumber  the slot number of the compound item
+     * @param itemCount   the number of items of the machine after the change
+     * @param item        the compound item, with its final price and calories
+     * @param recipe      the required items and their required quantities
+     */
+
+    @Override
+    void replayCompound (int slotNumber, int itemCount, Item item, ArrayList<RequiredItem> recipe) {
+        CompoundSlot compound = compoundsByNumber.get(slotNumber);
+
+        if (compound == null)
+            this.restoreCompound(slotNumber, item, recipe);
+        else
+            this.replayItemState(compound, item);
+        this.setItemCount(itemCount);
+    }
+
+    /**
+     * Takes the stock of a purchase read from the journal. For a compound item, the stock of every required item
+     * is taken from its regular slot; a regular item is handled as in VendingMachine.
+     * 
+     * @param slotNumber  the number of the slot
+     * @param itemId      the catalog ID of the item
+     * @param quantity    the number of units bought
+     * @return true if the slot holds that item, false if the purchase does not match the machine and is skipped
+     */
+
+    @Override
+    boolean replayStock (int slotNumber, int itemId, int quantity) {
+        CompoundSlot compound = compoundsByNumber.get(slotNumber);
+
+        if (compound == null)
+            return super.replayStock(slotNumber, itemId, quantity);
+        if (compound.getItemId() != itemId)
+            return false;
+
+        this.compileRecipe(compound);
+        if (!compound.isCompiledValid())
+            return false;
+
+        Slot[] ingredients = compound.getIngredientSlots();
+        int[] quantities = compound.getIngredientQuantities();
+
+        for (int i = 0; i < ingredients.length; i++)
+            ingredients[i].deductQuantity(Math.multiplyExact(quantities[i], quantity));
+        return true;
     }
 
     /**
@@ -82,53 +199,66 @@ public class SpecialVendingMachine extends VendingMachine{
      */
 
     public int computeCompoundQuantity(CompoundSlot slot) {
-        ArrayList<Slot> slotReference;
-        ArrayList<RequiredItem> requiredReference;
-        try {
-            slotReference = this.getSlots();
-            requiredReference = slot.getRequiredItems();
-        }
-        catch (NullPointerException e) {
-            System.out.println(e);
+        if (slot == null || slot.getRequiredItems() == null) {
+            MachineLog.warn("ERROR: Required items or slots are not available.");
             return 0;
         }
-    
-        if (requiredReference == null || slotReference == null) {
-            System.out.println("ERROR: Required items or slots are not available.");
-            return 0;
-        }
-    
-        int quantity = Integer.MAX_VALUE;
-    
+
+        this.compileRecipe(slot);
+        return slot.getAvailableQuantity();
+    }
+
+    /**
+     * Compiles the recipe of a compound slot into the slots holding its required items, unless the
+     * compiled recipe is still up to date. A required item that appears more than once is merged into
+     * a single entry whose quantity is the sum of its required quantities. The compound slot is then
+     * tracked by the ingredient slots of the new recipe, which keep its available quantity up to date.
+     * 
+     * @param slot  the compound slot whose recipe will be compiled
+     */
+
+    private void compileRecipe (CompoundSlot slot) {
+        int layout = this.getLayoutVersion();
+
+        if (slot.isCompiled(layout))
+            return;
+
+        ArrayList<RequiredItem> requiredReference = slot.getRequiredItems();
+        Slot[] previous = slot.getIngredientSlots();
+        Slot[] ingredients = new Slot[requiredReference.size()];
+        int[] quantities = new int[requiredReference.size()];
+        int count = 0;
+        boolean valid = true;
+
         for (RequiredItem requiredItem : requiredReference) {
-            if (!this.hasItem(requiredItem.getItem())) {
-                System.out.println("ERROR: <" + requiredItem.getItem().getName() + "> is not available.");
-                return 0;
+            Slot referenceSlot = this.getSlotByItemId(this.resolveItemId(requiredItem));
+
+            if (referenceSlot == null || !referenceSlot.getItem().equals(requiredItem.getItem())) {
+                MachineLog.warn(() -> "ERROR: <" + requiredItem.getItem().getName() + "> is not available.");
+                valid = false;
+                break;
             }
-    
-            int itemQuantity = Integer.MAX_VALUE;
-            for (Slot referenceSlot : slotReference) {
-                if (referenceSlot.getItem() != null && referenceSlot.getItem().equals(requiredItem.getItem())) {
-                    int requiredQuantity = requiredItem.getRequiredQuantity();
-                    if (requiredQuantity == 0) {
-                        System.out.println("ERROR: Required quantity for <" + requiredItem.getItem().getName() + "> is zero.");
-                        return 0;
-                    }
-    
-                    int availableQuantity = referenceSlot.getQuantity();
-                    itemQuantity = Math.min(itemQuantity, availableQuantity / requiredQuantity);
-                }
+
+            int requiredQuantity = requiredItem.getRequiredQuantity();
+            if (requiredQuantity == 0) {
+                MachineLog.warn(() -> "ERROR: Required quantity for <" + requiredItem.getItem().getName() + "> is zero.");
+                valid = false;
+                break;
             }
-    
-            if (itemQuantity == Integer.MAX_VALUE) {
-                System.out.println("Insufficient Required Item Quantity: " + requiredItem.getItem().getName());
-                return 0;
+
+            int index = 0;
+            while (index < count && ingredients[index] != referenceSlot)
+                index++;
+
+            if (index == count) {
+                ingredients[count] = referenceSlot;
+                count++;
             }
-    
-            quantity = Math.min(quantity, itemQuantity);
+            quantities[index] += requiredQuantity;
         }
-    
-        return quantity;
+
+        slot.setCompiled(Arrays.copyOf(ingredients, count), Arrays.copyOf(quantities, count), valid, layout);
+        compoundAvailability.track(slot, previous);
     }
 
     /**
@@ -141,65 +271,226 @@ public class SpecialVendingMachine extends VendingMachine{
      */
 
     public CompoundSlot buyCompoundItem (int slotNumber, CashHolder destination, CompoundSlotPanel panel) {
-        System.out.println("Purchasing Compound Item...");
+        return this.buyCompoundItem(slotNumber, 1, destination, panel);
+    }
+
+    /**
+     * Purchases several units of a compound item as a single purchase and shows the change on the panel.
+     * 
+     * @param slotNumber   the slot number of the compound item in the vending machine
+     * @param quantity     the number of units to buy
+     * @param destination  the CashHolder to receive the change after the purchase
+     * @param panel is the panel that corresponds to this purchase
+     * @return the compound slot that was purchased from, or null if the purchase was not successful
+     */
 
-        for (CompoundSlot slot : compoundItems) {
+    public CompoundSlot buyCompoundItem (int slotNumber, int quantity, CashHolder destination, CompoundSlotPanel panel) {
+        PurchaseResult result = this.purchaseCompound(slotNumber, quantity, destination);
 
-            if (slot.getSlotNum() == slotNumber) {
+        if (!result.isSuccessful())
+            return null;
 
-                if (this.computeCompoundQuantity(slot) > 0) {
+        panel.setChange(Money.toPesos(result.getChangeCentavos()));
+        return compoundsByNumber.get(slotNumber);
+    }
 
-                    if (this.hasChange(slot.getItem().getPrice())) {
+    /**
+     * Purchases several units of a compound item as a single purchase, without any user interface.
+     * The ingredients for every unit are reserved at once, the change is computed once for the whole
+     * amount and the purchase is stored as one transaction. Like purchase, a purchase that fails because
+     * the machine cannot give the change returns the money received to the destination.
+     * 
+     * @param slotNumber   the slot number of the compound item in the vending machine
+     * @param quantity     the number of units to buy
+     * @param destination  the CashHolder to receive the change after the purchase
+     * @return the result of the purchase, with the compound item and the change if it was successful
+     */
 
-                        if (this.hasSufficientBalance(slot)) {
+    public PurchaseResult purchaseCompound (int slotNumber, int quantity, CashHolder destination) {
+        MachineLog.debug("Purchasing Compound Item...");
+        this.checkJournal();
 
-                            ArrayList<RequiredItem> reference = slot.getRequiredItems();
-                            ArrayList<Slot> referenceSlots = this.getSlots();
+        CompoundSlot slot = compoundsByNumber.get(slotNumber);
 
-                            for (RequiredItem reqItem : reference) {
-                                for (Slot refSlot : referenceSlots) {
+        if (slot != null) {
 
-                                    if (refSlot.getItem() != null) {
+            if (quantity <= 0) {
+                MachineLog.warn("ERROR: Invalid Quantity.");
+                return PurchaseResult.failure(PurchaseStatus.INVALID_QUANTITY);
+            }
 
-                                        if (refSlot.getItem().equals(reqItem.getItem())) {
-                                            refSlot.deductQuantity(reqItem.getRequiredQuantity());
-                                        }
-                                    }
-                                }
-                            }
+            if (this.computeCompoundQuantity(slot) >= quantity) {
+
+                long price = Money.multiply(slot.getItem().getPriceCentavos(), quantity);
+                ChangePlan plan = this.planChange(price);
+
+                if (plan != null) {
 
-                            System.out.println("[" + slot.getItem().getName() + "] has been purchased");
-                            panel.setChange(this.giveChange(destination, slot.getItem().getPrice()));
-                            this.getTransactionRecord().addTransaction(slot.getItem().getName(), slot.getItem().getPrice());
-                            this.completePurchase();
-                            return slot;
+                    if (this.hasSufficientBalance(slot, quantity)) {
 
+                        int[] needed = slot.getIngredientQuantities().clone();
+                        for (int i = 0; i < needed.length; i++)
+                            needed[i] = Math.multiplyExact(needed[i], quantity);
 
+                        StockReservation reservation = StockReservation.reserve(slot.getIngredientSlots(), needed);
+
+                        if (reservation == null) {
+                            MachineLog.warn("ERROR: Insufficeint Quantity.");
+                            return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_QUANTITY);
+                        }
+                        // The reserve changes and the sale are journaled as one event
+                        PurchaseJournal events = this.beginEvent();
+                        try {
+                            if (!this.completePurchase(plan, destination)) {
+                                reservation.release();
+                                MachineLog.warn("ERROR: Change is no longer available.");
+                                this.cancelTransaction(destination);
+                                return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_CHANGE);
+                            }
+                            reservation.commit();
+
+                            MachineLog.debug(() -> "[" + slot.getItem().getName() + "] has been purchased");
+                            this.recordSale(slot, quantity);
                         }
-                        else {
-                            System.out.println("ERROR: Insufficient Balance");
-                            return null;
+                        finally {
+                            endEvent(events);
                         }
+                        return PurchaseResult.success(slot.getItem(), quantity, price, plan);
+
 
                     }
                     else {
-                        System.out.println("ERROR: Insufficeint Change");
-                        return null;
+                        MachineLog.warn("ERROR: Insufficient Balance");
+                        return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_BALANCE);
                     }
-                    
+
                 }
                 else {
-                    System.out.println("ERROR: Insufficeint Quantity.");
-                    return null;
+                    MachineLog.warn("ERROR: Insufficeint Change");
+                    this.cancelTransaction(destination);
+                    return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_CHANGE);
+                }
+                
+            }
+            else {
+                MachineLog.warn("ERROR: Insufficeint Quantity.");
+                return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_QUANTITY);
+            }
+
+        }
+        else {
+            MachineLog.warn("ERROR: Slot does not exist.");
+            return PurchaseResult.failure(PurchaseStatus.SLOT_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Buys every line of a cart as a single purchase. Regular and compound lines are added up into the
+     * stock needed from each regular slot, so ingredients shared by several compounds are checked against
+     * their combined demand. The change is computed once for the cart total, and either the whole cart
+     * is bought or nothing is taken. One transaction is recorded per line of the cart.
+     * Like purchase, a checkout that fails because the machine cannot give the change returns the money
+     * received to the destination.
+     * 
+     * @param cart         the items to buy
+     * @param destination  the CashHolder to receive the change after the purchase
+     * @return the result of the checkout, with the total units and the change if it was successful
+     */
+
+    public PurchaseResult checkout (Cart cart, CashHolder destination) {
+        MachineLog.debug("Checking out Cart...");
+        this.checkJournal();
+
+        if (cart == null || cart.isEmpty()) {
+            MachineLog.warn("ERROR: Cart is empty.");
+            return PurchaseResult.failure(PurchaseStatus.INVALID_QUANTITY);
+        }
+
+        HashMap<Slot, Integer> demand = new HashMap<Slot, Integer>();
+        Slot[] lineSlots = new Slot[cart.size()];
+        long total = 0;
+        int units = 0;
+
+        for (int line = 0; line < cart.size(); line++) {
+            int slotNumber = cart.getSlotNumber(line);
+            int quantity = cart.getQuantity(line);
+            CompoundSlot compound = compoundsByNumber.get(slotNumber);
+            Slot slot = (compound != null) ? compound : this.getSlot(slotNumber);
+
+            if (slot == null || slot.getItem() == null) {
+                MachineLog.warn(() -> "ERROR: Slot " + slotNumber + " does not exist.");
+                return PurchaseResult.failure(PurchaseStatus.SLOT_NOT_FOUND);
+            }
+
+            if (compound != null) {
+                if (this.computeCompoundQuantity(compound) < quantity) {
+                    MachineLog.warn(() -> "ERROR: Insufficeint Quantity of <" + compound.getItem().getName() + ">.");
+                    return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_QUANTITY);
                 }
 
+                Slot[] ingredients = compound.getIngredientSlots();
+                int[] quantities = compound.getIngredientQuantities();
+
+                for (int i = 0; i < ingredients.length; i++)
+                    demand.merge(ingredients[i], Math.multiplyExact(quantities[i], quantity), Math::addExact);
             }
             else {
-                System.out.println("ERROR: Slot does not exist.");
-                return null;
+                demand.merge(slot, quantity, Math::addExact);
             }
+
+            lineSlots[line] = slot;
+            units = Math.addExact(units, quantity);
+            total = Money.add(total, Money.multiply(slot.getItem().getPriceCentavos(), quantity));
+        }
+
+        ChangePlan plan = this.planChange(total);
+
+        if (plan == null) {
+            MachineLog.warn("ERROR: Insufficeint Change");
+            this.cancelTransaction(destination);
+            return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_CHANGE);
+        }
+        if (!this.hasSufficientBalanceCentavos(total)) {
+            MachineLog.warn("ERROR: Insufficient Balance");
+            return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_BALANCE);
         }
-        return null;
+
+        Slot[] slots = new Slot[demand.size()];
+        int[] needed = new int[demand.size()];
+        int index = 0;
+
+        for (Map.Entry<Slot, Integer> entry : demand.entrySet()) {
+            slots[index] = entry.getKey();
+            needed[index] = entry.getValue();
+            index++;
+        }
+
+        StockReservation reservation = StockReservation.reserve(slots, needed);
+
+        if (reservation == null) {
+            MachineLog.warn("ERROR: Insufficeint Quantity.");
+            return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_QUANTITY);
+        }
+        // The reserve changes and every line of the cart are journaled as one event
+        PurchaseJournal events = this.beginEvent();
+        try {
+            if (!this.completePurchase(plan, destination)) {
+                reservation.release();
+                MachineLog.warn("ERROR: Change is no longer available.");
+                this.cancelTransaction(destination);
+                return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_CHANGE);
+            }
+            reservation.commit();
+
+            for (int line = 0; line < cart.size(); line++)
+                this.recordSale(lineSlots[line], cart.getQuantity(line));
+        }
+        finally {
+            endEvent(events);
+        }
+
+        MachineLog.debug("Cart has been purchased");
+        return PurchaseResult.success(null, units, total, plan);
     }
 
     /**
@@ -220,11 +511,10 @@ public class SpecialVendingMachine extends VendingMachine{
      */
 
     public void addRequiredITemToCompound (String name, RequiredItem reqItem) {
-        
-        for (CompoundSlot slot : compoundItems) {
-            if (slot.getItem().getName().equalsIgnoreCase(name)) {
-                slot.addRequiredItem(reqItem.getItem(), reqItem.getRequiredQuantity());
-            }
+        CompoundSlot slot = this.getCompoundItem(name);
+
+        if (slot != null) {
+            this.resolveItemId(slot.addRequiredItem(reqItem.getItem(), reqItem.getRequiredQuantity()));
         }
     }
     
@@ -236,15 +526,7 @@ public class SpecialVendingMachine extends VendingMachine{
      */
 
     public boolean checkSlotAvail (int slotNum) {
-        for (Slot slot : this.getSlots()) 
-            if (slot.getSlotNum() == slotNum)
-                return false;
-
-        for (CompoundSlot slot : this.getCompoundSlots()) 
-            if (slot.getSlotNum() == slotNum)
-                return false;
-
-        return true;
+        return this.getSlot(slotNum) == null && compoundsByNumber.get(slotNum) == null;
     }
 
     /**
@@ -257,28 +539,30 @@ public class SpecialVendingMachine extends VendingMachine{
      */
     
     public int insertAt(Item item, int quantity, int position) {
-        System.out.println("Inserting item at <" + position + ">...");
+        MachineLog.debug(() -> "Inserting item at <" + position + ">...");
 
-        if (this.hasItem(item)) {
-            System.out.println("Machine already contains [" + item.getName() + "]\n");
+        if (this.getSlot(item.getName()) != null) {
+            MachineLog.warn(() -> "Machine already contains [" + item.getName() + "]\n");
             return 0;
         }
         else if (this.checkSlotAvail(position)) {
-            System.out.println("ERROR: Slot is occupied.");
+            MachineLog.warn("ERROR: Slot is occupied.");
             return 0;
         }
         else {
-            for (int i = 0; i < this.getSlots().size(); i++) {
-                if (this.getSlots().get(i).getItem() == null && this.getSlots().get(i).getSlotNum() == position) {
+            Slot slot = this.getSlot(position);
 
-                    this.getSlots().get(i).setItem(item, quantity);
-                    System.out.println("The item [" + item.getName() + "] was inserted in Slot " + this.getSlots().get(i).getSlotNum() + "\n");
-                    this.increaseItemCount();
+            if (slot != null && slot.getItem() == null) {
 
-                    return 1;
-                }
+                slot.setItem(item, quantity);
+                this.indexItem(slot);
+                MachineLog.info(() -> "The item [" + item.getName() + "] was inserted in Slot " + slot.getSlotNum() + "\n");
+                this.increaseItemCount();
+                this.layoutChanged(slot);
+
+                return 1;
             }
-            System.out.println("Machine is Full\n");
+            MachineLog.warn("Machine is Full\n");
             return -1;
         }
     }
@@ -294,11 +578,8 @@ public class SpecialVendingMachine extends VendingMachine{
         if (item == null)   
             return false;
 
-        for (CompoundSlot compoundItem : this.getCompoundSlots())
-            if(compoundItem.getItem().equals(item))
-                return true;
-
-        return false;
+        CompoundSlot compoundItem = this.getCompoundItem(item.getName());
+        return compoundItem != null && compoundItem.getItem().equals(item);
     }
 
     /**
@@ -344,12 +625,91 @@ public class SpecialVendingMachine extends VendingMachine{
      */
     
     public CompoundSlot getCompoundItem (String name) {
+        if (name == null)
+            return null;
 
-        for (CompoundSlot slot : this.compoundItems) 
-            if (slot.getItem().getName().equalsIgnoreCase(name)) 
-                return slot;
+        int id = this.getCatalog().getId(name);
+        return id >= 0 && id < compoundsById.length ? compoundsById[id] : null;
+    }
 
-        return null;
+    /**
+     * Adds a compound slot to the index of compound slots by item ID.
+     * 
+     * @param slot  the compound slot to index
+     */
+
+    private void indexCompound (CompoundSlot slot) {
+        int id = this.getCatalog().intern(slot.getItem());
+
+        if (id >= compoundsById.length)
+            compoundsById = Arrays.copyOf(compoundsById, Math.max(id + 1, compoundsById.length * 2));
+        compoundsById[id] = slot;
+        slot.setItemId(id);
+        slot.getItem().addListener(this.getPriceListener());
+    }
+
+    /**
+     * Tells the layout listeners that the price of a regular or compound item held by the machine changed.
+     * 
+     * @param item  the item whose price changed
+     */
+
+    @Override
+    void itemPriceChanged (Item item) {
+        CompoundSlot slot = this.getCompoundItem(item.getName());
+
+        if (slot != null && slot.getItem() == item)
+            this.layoutChanged(slot);
+        else
+            super.itemPriceChanged(item);
+    }
+
+    /**
+     * Gets the catalog ID of a required item, looking it up the first time it is needed.
+     * 
+     * @param requiredItem  the required item
+     * @return the catalog ID of the required item
+     */
+
+    private int resolveItemId (RequiredItem requiredItem) {
+        if (requiredItem.getItemId() < 0)
+            requiredItem.setItemId(this.getCatalog().intern(requiredItem.getItem().getName()));
+        return requiredItem.getItemId();
+    }
+
+    /**
+     * Gets the compound slot with the given slot number.
+     * 
+     * @param slotNumber  the slot number of the compound item
+     * @return the CompoundSlot with that slot number, or null if not found
+     */
+
+    public CompoundSlot getCompoundSlot (int slotNumber) {
+        return compoundsByNumber.get(slotNumber);
+    }
+
+    /**
+     * Renames a regular or compound item of the vending machine and keeps the name indexes up to date.
+     * 
+     * @param name     the current name of the item
+     * @param newName  the new name of the item
+     * @return true if the item was renamed, false if it does not exist or the new name is taken
+     */
+
+    @Override
+    public boolean renameItem (String name, String newName) {
+        CompoundSlot slot = this.getCompoundItem(name);
+
+        if (slot == null)
+            return super.renameItem(name, newName);
+        if (this.getCompoundItem(newName) != null && this.getCompoundItem(newName) != slot)
+            return false;
+
+        if (!this.getCatalog().rename(slot.getItemId(), newName))
+            return false;
+        slot.getItem().setName(newName);
+        this.layoutChanged(slot);
+        return true;
     }
 
 
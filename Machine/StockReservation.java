@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+/**
+ * The StockReservation class takes stock from several slots at once, so that either every slot gives
+ * its quantity or none of them do.
+ *
+ * The slots are locked one at a time in ascending order of slot number. Every purchase locks the slots
+ * it shares with another purchase in the same order, so two purchases can never wait on each other,
+ * and purchases that do not share a slot never wait at all. Once every slot is locked, the quantities
+ * are checked and only then deducted, so a failed reservation leaves the stock untouched.
+ * The slots count the deducted units as reserved until the reservation is committed or released.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public final class StockReservation {
+    // Declaration of variables
+    private final Slot[] slots;
+    private final int[] quantities;
+    private boolean done;
+
+    /**
+     * Constructs a reservation of stock that was already deducted from the given slots.
+     * @param slots is the slots the stock was taken from
+     * @param quantities is the quantity taken from each slot
+     */
+    private StockReservation (Slot[] slots, int[] quantities) {
+        this.slots = slots;
+        this.quantities = quantities;
+    }
+
+    /**
+     * This method will take the given quantity from each of the given slots, or nothing at all
+     * if one of the slots does not have enough.
+     * @param slots is the slots to take the stock from, without duplicates
+     * @param quantities is the quantity to take from each slot
+     * @return the reservation, or null if one of the slots does not have enough stock
+     */
+    public static StockReservation reserve (Slot[] slots, int[] quantities) {
+        Integer[] order = new Integer[slots.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(slots[a].getSlotNum(), slots[b].getSlotNum()));
+
+        int locked = 0;
+        try {
+            for (; locked < order.length; locked++)
+                slots[order[locked]].getLock().lock();
+
+            for (int i = 0; i < slots.length; i++) {
+                if (quantities[i] < 0 || slots[i].getQuantity() < quantities[i])
+                    return null;
+            }
+
+            for (int i = 0; i < slots.length; i++)
+                slots[i].reserveQuantity(quantities[i]);
+        }
+        finally {
+            while (locked > 0) {
+                locked--;
+                slots[order[locked]].getLock().unlock();
+            }
+        }
+
+        return new StockReservation(slots, quantities);
+    }
+
+    /**
+     * This method will take the given quantity from a single slot, or nothing if it does not have enough.
+     * @param slot is the slot to take the stock from
+     * @param quantity is the quantity to take
+     * @return the reservation, or null if the slot does not have enough stock
+     */
+    public static StockReservation reserve (Slot slot, int quantity) {
+        return reserve(new Slot[] { slot }, new int[] { quantity });
+    }
+
+    /**
+     * This method will keep the reserved stock for a purchase that was completed.
+     * Committing or releasing a reservation that is already done has no effect.
+     */
+    public void commit () {
+        if (done)
+            return;
+        done = true;
+
+        for (int i = 0; i < slots.length; i++)
+            slots[i].commitQuantity(quantities[i]);
+    }
+
+    /**
+     * This method will put the reserved stock back into its slots, for a purchase that could not be completed.
+     * Committing or releasing a reservation that is already done has no effect.
+     */
+    public void release () {
+        if (done)
+            return;
+        done = true;
+
+        for (int i = 0; i < slots.length; i++)
+            slots[i].restoreQuantity(quantities[i]);
+    }
+}
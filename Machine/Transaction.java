@@ -1,25 +1,67 @@
 /**
- * The Transaction class represents a transaction for a specific item, containing its name and price.
+ * The Transaction class represents a transaction for a specific item, containing its name, price and quantity.
  * It is used to store information about an item that was purchased in a vending machine transaction.
+ * A purchase of several units of the same item is stored as one transaction.
  * 
- * The class provides methods to retrieve the name and price of the item in the transaction.
+ * The class provides methods to retrieve the name, price and quantity of the item in the transaction.
  * 
  * @author Ampatin, Ian Kenneth J
  * @author Paredes, Bill Jethro P
  */
 class Transaction {
+     private int itemId;
      private String itemName;
-     private double itemPrice;
+     private long itemPrice;
+     private int quantity;
+     private long timestamp;
 
      /**
-     * Constructs a Transaction object with the specified item name and price.
+     * Constructs a Transaction object with the specified item ID, item name and price.
      * 
+     * @param itemId    the catalog ID of the item in the transaction
      * @param itemName  the name of the item in the transaction
-     * @param itemPrice the price of the item in the transaction
+     * @param itemPrice the price of the item in the transaction, in centavos
      */
-     public Transaction (String itemName, double itemPrice) {
+     public Transaction (int itemId, String itemName, long itemPrice) {
+          this(itemId, itemName, itemPrice, 1);
+     }
+
+     /**
+     * Constructs a Transaction object for several units of the same item.
+     * 
+     * @param itemId    the catalog ID of the item in the transaction
+     * @param itemName  the name of the item in the transaction
+     * @param itemPrice the price of a single unit of the item, in centavos
+     * @param quantity  the number of units purchased
+     */
+     public Transaction (int itemId, String itemName, long itemPrice, int quantity) {
+          this(itemId, itemName, itemPrice, quantity, System.currentTimeMillis());
+     }
+
+     /**
+     * Constructs a Transaction object for several units of the same item sold at the given time.
+     * 
+     * @param itemId    the catalog ID of the item in the transaction
+     * @param itemName  the name of the item in the transaction
+     * @param itemPrice the price of a single unit of the item, in centavos
+     * @param quantity  the number of units purchased
+     * @param timestamp the time of the sale, in milliseconds since the epoch
+     */
+     public Transaction (int itemId, String itemName, long itemPrice, int quantity, long timestamp) {
+          this.itemId = itemId;
           this.itemName = itemName;
           this.itemPrice = itemPrice;
+          this.quantity = quantity;
+          this.timestamp = timestamp;
+     }
+
+     /**
+     * This method retrieves the catalog ID of the item in the transaction.
+     * 
+     * @return the catalog ID of the item in the transaction
+     */
+     public int getItemId () {
+          return itemId;
      }
 
      /**
@@ -34,9 +76,45 @@ class Transaction {
      /**
      * This method retrieves the price of the item in the transaction.
      * 
-     * @return the price of the item in the transaction
+     * @return the price of the item in the transaction, in pesos
      */
      public double getPrice () {
+          return Money.toPesos(itemPrice);
+     }
+
+     /**
+     * This method retrieves the price of the item in the transaction in centavos.
+     * 
+     * @return the price of the item in the transaction, in centavos
+     */
+     public long getPriceCentavos () {
           return itemPrice;
      }
+
+     /**
+     * This method retrieves the number of units purchased in the transaction.
+     * 
+     * @return the number of units purchased
+     */
+     public int getQuantity () {
+          return quantity;
+     }
+
+     /**
+     * This method retrieves the time of the sale.
+     * 
+     * @return the time of the sale, in milliseconds since the epoch
+     */
+     public long getTimestamp () {
+          return timestamp;
+     }
+
+     /**
+     * This method retrieves the amount paid for all the units in the transaction.
+     * 
+     * @return the price of a single unit times the quantity, in centavos
+     */
+     public long getTotalCentavos () {
+          return Money.multiply(itemPrice, quantity);
+     }
 }
\ No newline at end of file
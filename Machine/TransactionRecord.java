@@ -1,27 +1,118 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The TransactionRecord class represents a record of transactions made in a vending machine.
- * It stores a list of Transaction objects, each containing the name and price of an item purchased.
+ * The transactions are stored in columns by a TransactionStore, and are only turned into Transaction
+ * objects when they are read through getTransactions.
  * 
  * The class provides methods to add a new transaction, retrieve the list of transactions,
  * calculate the total amount spent on a specific item, and reset the transaction record.
  * 
- * Note: The class assumes that each transaction corresponds to a single item purchase.
+ * The record is append-only. Resetting it, which happens at the end of every restock visit, seals the
+ * transactions so far as an epoch instead of erasing them. A reset with no transactions since the last
+ * one seals nothing, so the epochs never hold empty copies of the totals. The number of units sold and the amount earned are kept per item ID
+ * for the current epoch, for every sealed epoch and for all time, so "since the last restock" and
+ * "all time" totals are both read in constant time no matter how many transactions there are.
+ * 
+ * Every transaction is also added to a SalesRollup, which buckets the sales of every item by minute, hour
+ * and day, so "sales in the last hour" and "revenue today" are read without scanning the transactions.
+ * The time of a transaction is read from a Clock, which can be given to the constructor.
+ * 
+ * Note: A transaction may cover several units of the same item bought in one purchase.
  * 
  * @author Ampatin, Ian Kenneth J
  * @author Paredes, Bill Jethro P
  */
 
 public class TransactionRecord {
-     ArrayList<Transaction> transactionsList;
+     private TransactionStore store;
+     private ItemCatalog catalog;
+     private int[] unitsSold = new int[0];
+     private long[] revenue = new long[0];
+     private int[] allTimeUnits = new int[0];
+     private long[] allTimeRevenue = new long[0];
+     private int epochStart;
+     private ArrayList<Epoch> epochs = new ArrayList<Epoch>();
+     private SalesRollup rollup = new SalesRollup();
+     private Clock clock;
+
+     /**
+     * The Epoch class holds the transactions between two restocks, with the totals of every item.
+     */
+     private static final class Epoch {
+          private final int start;
+          private final int end;
+          private final int[] unitsSold;
+          private final long[] revenue;
+          private final long sealedAt;
+
+          /**
+          * Constructs a sealed epoch.
+          * 
+          * @param start     the position of the first transaction of the epoch
+          * @param end       the position after the last transaction of the epoch
+          * @param unitsSold the units sold of every item during the epoch
+          * @param revenue   the amount earned from every item during the epoch, in centavos
+          * @param sealedAt  the time the epoch was sealed, in milliseconds since the epoch
+          */
+          private Epoch (int start, int end, int[] unitsSold, long[] revenue, long sealedAt) {
+               this.start = start;
+               this.end = end;
+               this.unitsSold = unitsSold;
+               this.revenue = revenue;
+               this.sealedAt = sealedAt;
+          }
+     }
 
      /**
-     * Constructs a TransactionRecord object with an empty list of transactions.
+     * Constructs a TransactionRecord object with an empty list of transactions and its own item catalog.
      */
 
      public TransactionRecord () {
-          transactionsList = new ArrayList<Transaction>();
+          this(new ItemCatalog());
+     }
+
+     /**
+     * Constructs a TransactionRecord object with an empty list of transactions
+     * that identifies items through the given catalog.
+     * 
+     * @param catalog the item catalog shared with the vending machine
+     */
+
+     public TransactionRecord (ItemCatalog catalog) {
+          this(catalog, Clock.systemDefaultZone());
+     }
+
+     /**
+     * Constructs a TransactionRecord object with an empty list of transactions
+     * that identifies items through the given catalog and reads the time from the given clock.
+     * 
+     * @param catalog the item catalog shared with the vending machine
+     * @param clock   the clock that gives the time of every transaction
+     */
+
+     public TransactionRecord (ItemCatalog catalog, Clock clock) {
+          store = new TransactionStore();
+          this.catalog = catalog;
+          this.clock = clock;
+     }
+
+     /**
+     * Retrieves the clock that gives the time of every transaction.
+     * 
+     * @return the clock of the record
+     */
+
+     public Clock getClock() {
+          return clock;
      }
 
      /**
@@ -32,41 +123,491 @@ public class TransactionRecord {
      */
 
      public void addTransaction (String itemName, double itemPrice) {
-          transactionsList.add(new Transaction(itemName, itemPrice));
+          addTransactionCentavos(itemName, Money.fromPesos(itemPrice));
+     }
+
+     /**
+     * Adds a new transaction to the record with the given item name and price in centavos.
+     * 
+     * @param itemName  the name of the item purchased in the transaction
+     * @param centavos  the price of the item purchased in the transaction, in centavos
+     */
+
+     public void addTransactionCentavos (String itemName, long centavos) {
+          addTransaction(catalog.intern(itemName), centavos);
+     }
+
+     /**
+     * Adds a new transaction to the record with the given item ID and price in centavos.
+     * 
+     * @param itemId    the catalog ID of the item purchased in the transaction
+     * @param centavos  the price of the item purchased in the transaction, in centavos
+     */
+
+     public void addTransaction (int itemId, long centavos) {
+          addTransaction(itemId, centavos, 1);
+     }
+
+     /**
+     * Adds a single transaction to the record for several units of the same item.
+     * 
+     * @param itemId    the catalog ID of the item purchased in the transaction
+     * @param centavos  the price of a single unit of the item, in centavos
+     * @param quantity  the number of units purchased
+     */
+
+     public void addTransaction (int itemId, long centavos, int quantity) {
+          addTransaction(itemId, centavos, quantity, clock.millis());
+     }
+
+     /**
+     * Adds a single transaction that happened at the given time, such as one replayed from a journal.
+     * 
+     * @param itemId    the catalog ID of the item purchased in the transaction
+     * @param centavos  the price of a single unit of the item, in centavos
+     * @param quantity  the number of units purchased
+     * @param timestamp the time of the transaction, in milliseconds since the epoch
+     */
+
+     void addTransaction (int itemId, long centavos, int quantity, long timestamp) {
+          long total = Money.multiply(centavos, quantity);
+
+          if (itemId >= unitsSold.length) {
+               int length = Math.max(itemId + 1, unitsSold.length * 2);
+               unitsSold = Arrays.copyOf(unitsSold, length);
+               revenue = Arrays.copyOf(revenue, length);
+               allTimeUnits = Arrays.copyOf(allTimeUnits, length);
+               allTimeRevenue = Arrays.copyOf(allTimeRevenue, length);
+          }
+          store.append(itemId, centavos, quantity, timestamp);
+          rollup.add(itemId, toLocal(timestamp), quantity, total);
+          unitsSold[itemId] += quantity;
+          revenue[itemId] = Money.add(revenue[itemId], total);
+          allTimeUnits[itemId] += quantity;
+          allTimeRevenue[itemId] = Money.add(allTimeRevenue[itemId], total);
      }
 
      /**
-     * Retrieves the list of transactions recorded in the transaction record.
+     * Retrieves the list of transactions recorded since the record was last reset.
+     * The list is a read-only view of the record, and each Transaction is created when it is read.
      * 
-     * @return an ArrayList containing the Transaction objects representing the transactions
+     * @return a List of the Transaction objects representing the transactions
      */
 
-     public ArrayList<Transaction> getTransactions() {
-          return transactionsList;
+     public List<Transaction> getTransactions() {
+          return view(epochStart, -1);
      }
 
      /**
-     * Clears the transaction record, removing all recorded transactions.
+     * Retrieves the list of every transaction ever recorded, across all epochs.
+     * 
+     * @return a List of the Transaction objects representing the transactions
+     */
+
+     public List<Transaction> getAllTransactions() {
+          return view(0, -1);
+     }
+
+     /**
+     * Retrieves the list of transactions of a sealed epoch.
+     * 
+     * @param epoch the number of the epoch, starting at 0 for the oldest one
+     * @return a List of the Transaction objects of that epoch
+     */
+
+     public List<Transaction> getEpochTransactions(int epoch) {
+          Epoch sealed = epochs.get(epoch);
+          return view(sealed.start, sealed.end);
+     }
+
+     /**
+     * Creates a read-only view of a range of the store.
+     * 
+     * @param from  the position of the first transaction of the view
+     * @param to    the position after the last transaction, or -1 to follow the end of the store
+     * @return a List of the transactions in that range
+     */
+
+     private List<Transaction> view(int from, int to) {
+          return new AbstractList<Transaction>() {
+               @Override
+               public Transaction get (int index) {
+                    if (index < 0 || index >= size())
+                         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+
+                    int position = from + index;
+                    return new Transaction(store.getItemId(position), catalog.getName(store.getItemId(position)),
+                                           store.getPrice(position), store.getQuantity(position), store.getTimestamp(position));
+               }
+
+               @Override
+               public int size () {
+                    return ((to < 0) ? store.size() : to) - from;
+               }
+          };
+     }
+
+     /**
+     * Retrieves the columnar store of the transactions, for reports that go over every transaction.
+     * 
+     * @return the store of the transactions
+     */
+
+     TransactionStore getStore() {
+          return store;
+     }
+
+     /**
+     * Resets the totals of the record by sealing the current epoch. Nothing is erased: the transactions
+     * and totals of the epoch stay available through the epoch and all time methods.
+     * Nothing is sealed if no transaction was added since the last reset.
      */
 
      public void resetRecord() {
-          this.transactionsList.clear();
+          this.sealEpoch();
+     }
+
+     /**
+     * Seals the transactions since the last reset as an epoch, with their totals per item,
+     * and starts a new epoch with no sales. Nothing is sealed if there were no transactions since the last reset.
+     * 
+     * @return true if an epoch was sealed
+     */
+
+     public boolean sealEpoch() {
+          return sealEpoch(clock.millis());
+     }
+
+     /**
+     * Seals the current epoch at the given time, such as the time of a restock visit replayed from a journal.
+     * 
+     * @param sealedAt the time the epoch is sealed, in milliseconds since the epoch
+     * @return true if an epoch was sealed, false if there were no transactions since the last one
+     */
+
+     boolean sealEpoch(long sealedAt) {
+          if (store.size() == epochStart)
+               return false;
+
+          epochs.add(new Epoch(epochStart, store.size(), unitsSold, revenue, sealedAt));
+          epochStart = store.size();
+          unitsSold = new int[unitsSold.length];
+          revenue = new long[revenue.length];
+          return true;
+     }
+
+     /**
+     * Retrieves the number of sealed epochs.
+     * 
+     * @return the number of times the record was reset
+     */
+
+     public int getEpochCount() {
+          return epochs.size();
+     }
+
+     /**
+     * Retrieves the time a sealed epoch ended.
+     * 
+     * @param epoch the number of the epoch, starting at 0 for the oldest one
+     * @return the time the epoch was sealed, in milliseconds since the epoch
+     */
+
+     public long getEpochSealedAt(int epoch) {
+          return epochs.get(epoch).sealedAt;
+     }
+
+     /**
+     * Retrieves the amount spent on an item during a sealed epoch.
+     * 
+     * @param epoch  the number of the epoch, starting at 0 for the oldest one
+     * @param itemId the catalog ID of the item
+     * @return the total amount spent on the item during that epoch, in centavos
+     */
+
+     public long getEpochTotalCentavos(int epoch, int itemId) {
+          long[] totals = epochs.get(epoch).revenue;
+          return (itemId < 0 || itemId >= totals.length) ? 0 : totals[itemId];
+     }
+
+     /**
+     * Retrieves the number of units of an item sold during a sealed epoch.
+     * 
+     * @param epoch  the number of the epoch, starting at 0 for the oldest one
+     * @param itemId the catalog ID of the item
+     * @return the number of units sold during that epoch
+     */
+
+     public int getEpochQuantitySold(int epoch, int itemId) {
+          int[] totals = epochs.get(epoch).unitsSold;
+          return (itemId < 0 || itemId >= totals.length) ? 0 : totals[itemId];
+     }
+
+     /**
+     * Retrieves the amount spent on the item with the given name since the record was created.
+     * 
+     * @param name the name of the item
+     * @return the total amount spent on the item across all epochs
+     */
+
+     public double getAllTimeTotal(String name) {
+          return Money.toPesos(getAllTimeTotalCentavos(catalog.getId(name)));
+     }
+
+     /**
+     * Retrieves the amount spent on the item with the given catalog ID since the record was created.
+     * 
+     * @param itemId the catalog ID of the item
+     * @return the total amount spent on the item across all epochs, in centavos
+     */
+
+     public long getAllTimeTotalCentavos(int itemId) {
+          if (itemId < 0 || itemId >= allTimeRevenue.length)
+               return 0;
+          return allTimeRevenue[itemId];
+     }
+
+     /**
+     * Retrieves the number of units of the item with the given catalog ID sold since the record was created.
+     * 
+     * @param itemId the catalog ID of the item
+     * @return the number of units sold across all epochs
+     */
+
+     public int getAllTimeQuantitySold(int itemId) {
+          if (itemId < 0 || itemId >= allTimeUnits.length)
+               return 0;
+          return allTimeUnits[itemId];
      }
 
      /**
-     * Calculates the total amount spent on the item with the given name in all transactions.
+     * Calculates the total amount spent on the item with the given name since the record was last reset.
      * 
      * @param name the name of the item to calculate the total amount spent
      * @return the total amount spent on the specified item
      */
     
      public double getTotal (String name) {
-          double total = 0;
-          for (Transaction transaction : transactionsList) {
-               if (transaction.getName().equalsIgnoreCase(name))
-                    total += transaction.getPrice();
+          return Money.toPesos(getTotalCentavos(name));
+     }
+
+     /**
+     * Calculates the total amount spent on the item with the given name since the record was last reset, in centavos.
+     * 
+     * @param name the name of the item to calculate the total amount spent
+     * @return the total amount spent on the specified item, in centavos
+     */
+
+     public long getTotalCentavos (String name) {
+          return getTotalCentavos(catalog.getId(name));
+     }
+
+     /**
+     * Retrieves the total amount spent on the item with the given catalog ID, in centavos.
+     * 
+     * @param itemId the catalog ID of the item
+     * @return the total amount spent on the specified item, in centavos
+     */
+
+     public long getTotalCentavos (int itemId) {
+          if (itemId < 0 || itemId >= revenue.length)
+               return 0;
+          return revenue[itemId];
+     }
+
+     /**
+     * Retrieves the number of units sold of the item with the given name.
+     * 
+     * @param name the name of the item
+     * @return the number of units sold of the specified item
+     */
+
+     public int getQuantitySold (String name) {
+          return getQuantitySold(catalog.getId(name));
+     }
+
+     /**
+     * Retrieves the number of units sold of the item with the given catalog ID.
+     * 
+     * @param itemId the catalog ID of the item
+     * @return the number of units sold of the specified item
+     */
+
+     public int getQuantitySold (int itemId) {
+          if (itemId < 0 || itemId >= unitsSold.length)
+               return 0;
+          return unitsSold[itemId];
+     }
+
+     /**
+     * Retrieves the number of units sold of an item in the latest buckets of a rollup resolution.
+     * For example, a resolution of MINUTE and 15 buckets gives the units sold in the last 15 minutes.
+     * 
+     * @param itemId     the catalog ID of the item
+     * @param resolution the size of the buckets
+     * @param buckets    the number of buckets, including the current one
+     * @return the number of units sold in that window
+     */
+
+     public int getQuantitySoldInLast (int itemId, SalesRollup.Resolution resolution, int buckets) {
+          return rollup.getUnits(itemId, resolution, buckets, toLocal(clock.millis()));
+     }
+
+     /**
+     * Retrieves the amount earned from an item in the latest buckets of a rollup resolution.
+     * 
+     * @param itemId     the catalog ID of the item
+     * @param resolution the size of the buckets
+     * @param buckets    the number of buckets, including the current one
+     * @return the amount earned in that window, in centavos
+     */
+
+     public long getRevenueInLast (int itemId, SalesRollup.Resolution resolution, int buckets) {
+          return rollup.getRevenue(itemId, resolution, buckets, toLocal(clock.millis()));
+     }
+
+     /**
+     * Retrieves the number of units sold of an item in the last 60 minutes.
+     * 
+     * @param itemId the catalog ID of the item
+     * @return the number of units sold in the last hour
+     */
+
+     public int getQuantitySoldLastHour (int itemId) {
+          return getQuantitySoldInLast(itemId, SalesRollup.Resolution.MINUTE, 60);
+     }
+
+     /**
+     * Retrieves the amount earned from an item since midnight, in the time zone of the clock.
+     * 
+     * @param itemId the catalog ID of the item
+     * @return the amount earned today, in centavos
+     */
+
+     public long getRevenueToday (int itemId) {
+          return getRevenueInLast(itemId, SalesRollup.Resolution.DAY, 1);
+     }
+
+     /**
+     * Converts a time in milliseconds since the epoch to local milliseconds in the time zone of the clock.
+     * 
+     * @param millis the time in milliseconds since the epoch
+     * @return the same time shifted by the offset of the time zone
+     */
+
+     private long toLocal (long millis) {
+          return millis + clock.getZone().getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+     }
+
+     /**
+     * Writes the record to a snapshot: the number of transactions, the start of the current epoch, the range
+     * and totals of every sealed epoch, the totals of the current epoch and of all time, and the sales rollups.
+     * The transactions themselves go to the segment, which only receives the ones it does not hold yet.
+     * 
+     * @param out     the stream of the snapshot
+     * @param segment the segment of the transactions
+     * @throws IOException if the snapshot or the segment cannot be written
+     */
+
+     void writeTo(DataOutput out, TransactionSegment segment) throws IOException {
+          segment.append(store);
+          out.writeInt(store.size());
+          out.writeInt(epochStart);
+          writeTotals(out, unitsSold, revenue);
+          writeTotals(out, allTimeUnits, allTimeRevenue);
+          out.writeInt(epochs.size());
+          for (Epoch epoch : epochs) {
+               out.writeInt(epoch.start);
+               out.writeInt(epoch.end);
+               out.writeLong(epoch.sealedAt);
+               writeTotals(out, epoch.unitsSold, epoch.revenue);
+          }
+          rollup.writeTo(out);
+     }
+
+     /**
+     * Reads the record back from a snapshot written by writeTo, replacing its transactions, epochs and totals.
+     * The transactions are left in the segment until one of them is looked at, and the rows the segment
+     * holds past the snapshot are removed.
+     * 
+     * @param in      the stream of the snapshot
+     * @param segment the segment of the transactions
+     * @throws IOException if the snapshot cannot be read, or the segment does not hold its transactions
+     */
+
+     void readFrom(DataInput in, TransactionSegment segment) throws IOException {
+          int transactions = in.readInt();
+
+          segment.truncate(transactions);
+          store.restore(transactions, segment);
+          epochStart = in.readInt();
+          unitsSold = new int[in.readInt()];
+          revenue = new long[unitsSold.length];
+          readTotals(in, unitsSold, revenue);
+          allTimeUnits = new int[in.readInt()];
+          allTimeRevenue = new long[allTimeUnits.length];
+          readTotals(in, allTimeUnits, allTimeRevenue);
+
+          int count = in.readInt();
+          epochs = new ArrayList<Epoch>(count);
+          for (int e = 0; e < count; e++) {
+               int start = in.readInt();
+               int end = in.readInt();
+               long sealedAt = in.readLong();
+               int[] units = new int[in.readInt()];
+               long[] amounts = new long[units.length];
+
+               readTotals(in, units, amounts);
+               epochs.add(new Epoch(start, end, units, amounts, sealedAt));
+          }
+          rollup.readFrom(in);
+     }
+
+     /**
+     * Writes the units sold and the amount earned of every item. Only the items that sold something are written,
+     * since most epochs only sell a few items.
+     * 
+     * @param out     the stream of the snapshot
+     * @param units   the units sold of every item
+     * @param amounts the amount earned from every item, in centavos
+     * @throws IOException if the snapshot cannot be written
+     */
+
+     private static void writeTotals(DataOutput out, int[] units, long[] amounts) throws IOException {
+          int sold = 0;
+
+          for (int i = 0; i < units.length; i++)
+               if (units[i] != 0 || amounts[i] != 0)
+                    sold++;
+
+          out.writeInt(units.length);
+          out.writeInt(sold);
+          for (int i = 0; i < units.length; i++) {
+               if (units[i] != 0 || amounts[i] != 0) {
+                    out.writeInt(i);
+                    out.writeInt(units[i]);
+                    out.writeLong(amounts[i]);
+               }
+          }
+     }
+
+     /**
+     * Reads the units sold and the amount earned of the items written by writeTotals, after the number of items.
+     * 
+     * @param in      the stream of the snapshot
+     * @param units   the units sold of every item, filled in
+     * @param amounts the amount earned from every item, filled in
+     * @throws IOException if the snapshot cannot be read
+     */
+
+     private static void readTotals(DataInput in, int[] units, long[] amounts) throws IOException {
+          int sold = in.readInt();
+
+          for (int s = 0; s < sold; s++) {
+               int itemId = in.readInt();
+               units[itemId] = in.readInt();
+               amounts[itemId] = in.readLong();
           }
-          return total;
      }
 
 }
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The TransactionSegment class is an append-only file of the transactions of a TransactionRecord, kept next to
+ * the snapshots of a MachineStore. A snapshot only holds the totals of the record and the number of transactions
+ * it covers, so a checkpoint only appends the transactions recorded since the last one, and a restart does not
+ * read any transaction until one is looked at.
+ *
+ * The file starts with the magic number and the version, followed by one row of ROW_SIZE bytes per transaction:
+ * the item ID (int), the unit price in centavos (long), the quantity (int) and the time in milliseconds (long),
+ * all little-endian. Rows past the count of the latest snapshot were left by a checkpoint that did not finish,
+ * and are cut off when the snapshot is read.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class TransactionSegment {
+    // Declaration of constants
+    public static final int MAGIC = 0x53545650;
+    public static final int VERSION = 1;
+    public static final int ROW_SIZE = 4 + 8 + 4 + 8;
+    private static final int HEADER = 8;
+    private static final int BUFFER_ROWS = 4096;
+
+    // Declaration of variables
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_ROWS * ROW_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long rows;
+
+    /**
+     * Constructs a TransactionSegment that appends to the given file, which is created if it does not exist.
+     * @param path is the file of the segment
+     * @throws IOException if the file cannot be opened, or is not a transaction segment
+     */
+    public TransactionSegment (Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() < HEADER) {
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            writeFully(0);
+            channel.force(false);
+        }
+        else {
+            buffer.clear().limit(HEADER);
+            channel.read(buffer, 0);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Not a transaction segment: " + path);
+            }
+        }
+        rows = (channel.size() - HEADER) / ROW_SIZE;
+    }
+
+    /**
+     * This method will retrieve the number of transactions in the segment.
+     * @return the number of rows
+     */
+    public long getRows () {
+        return rows;
+    }
+
+    /**
+     * This method will append the transactions of a store that are not in the segment yet and force them to the disk.
+     * @param store is the store of the transactions, whose first rows are the rows of the segment
+     * @throws IOException if the rows cannot be written, or the store holds fewer rows than the segment
+     */
+    public void append (TransactionStore store) throws IOException {
+        if (store.size() < rows)
+            throw new IOException("The transaction segment " + path + " is ahead of its record");
+
+        long position = HEADER + rows * ROW_SIZE;
+        int index = (int) rows;
+
+        while (index < store.size()) {
+            buffer.clear();
+            for (int count = 0; count < BUFFER_ROWS && index < store.size(); count++, index++)
+                buffer.putInt(store.getItemId(index)).putLong(store.getPrice(index))
+                      .putInt(store.getQuantity(index)).putLong(store.getTimestamp(index));
+            buffer.flip();
+            position += writeFully(position);
+        }
+        channel.force(false);
+        rows = store.size();
+    }
+
+    /**
+     * This method will remove the rows after the given number of transactions.
+     * @param length is the number of transactions to keep
+     * @throws IOException if the segment holds fewer rows, or cannot be truncated
+     */
+    public void truncate (long length) throws IOException {
+        if (length > rows)
+            throw new IOException("The transaction segment " + path + " holds " + rows + " of " + length + " transactions");
+        if (length < rows) {
+            channel.truncate(HEADER + length * ROW_SIZE);
+            channel.force(false);
+            rows = length;
+        }
+    }
+
+    /**
+     * This method will read the first transactions of the segment into the first positions of a store.
+     * The file is opened again for reading, so the transactions can still be read after the segment is closed.
+     * @param store is the store that receives the transactions
+     * @param length is the number of transactions to read
+     * @throws IOException if the rows cannot be read
+     */
+    void readInto (TransactionStore store, int length) throws IOException {
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_ROWS * ROW_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = HEADER;
+            int index = 0;
+
+            while (index < length) {
+                in.clear().limit(Math.min(BUFFER_ROWS, length - index) * ROW_SIZE);
+                while (in.hasRemaining()) {
+                    int read = reader.read(in, position + in.position());
+                    if (read < 0)
+                        throw new IOException("The transaction segment " + path + " ends before row " + length);
+                }
+                in.flip();
+                position += in.limit();
+                while (in.hasRemaining())
+                    store.set(index++, in.getInt(), in.getLong(), in.getInt(), in.getLong());
+            }
+        }
+    }
+
+    /**
+     * This method will close the segment. Rows already handed to a store can still be read.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close () throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method will write the whole buffer at a position of the file.
+     * @param position is the position in the file
+     * @return the number of bytes written
+     * @throws IOException if the buffer cannot be written
+     */
+    private int writeFully (long position) throws IOException {
+        int written = 0;
+
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, position + written);
+        return written;
+    }
+}
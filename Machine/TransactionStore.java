@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * The TransactionStore class keeps transactions as columns of primitive values instead of one object
+ * per transaction: the item ID, the unit price in centavos, the time of the sale and the quantity.
+ *
+ * The columns are split into chunks of a fixed size. Adding a transaction only writes four array
+ * elements, and a new chunk is allocated once every CHUNK_SIZE transactions, so adding never copies
+ * the transactions already stored. Going over the transactions in order reads each column sequentially.
+ *
+ * A store restored from a snapshot starts with its older transactions still in a TransactionSegment. They are
+ * only read from the file the first time one of them is looked at; new transactions are added after them
+ * without reading anything.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class TransactionStore {
+    // Declaration of constants
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Declaration of variables
+    private int[][] itemIds = new int[0][];
+    private long[][] prices = new long[0][];
+    private long[][] timestamps = new long[0][];
+    private int[][] quantities = new int[0][];
+    private int chunks;
+    private int size;
+    private TransactionSegment segment;
+    private int unloaded;
+
+    /**
+     * This method will add a transaction at the end of the store.
+     * @param itemId is the catalog ID of the item
+     * @param price is the price of a single unit, in centavos
+     * @param quantity is the number of units sold
+     * @param timestamp is the time of the sale, in milliseconds since the epoch
+     */
+    public void append (int itemId, long price, int quantity, long timestamp) {
+        int chunk = size >>> CHUNK_BITS;
+        int offset = size & CHUNK_MASK;
+
+        if (chunk == chunks)
+            addChunk();
+
+        itemIds[chunk][offset] = itemId;
+        prices[chunk][offset] = price;
+        quantities[chunk][offset] = quantity;
+        timestamps[chunk][offset] = timestamp;
+        size++;
+    }
+
+    /**
+     * This method will make room for CHUNK_SIZE more transactions.
+     */
+    private void addChunk () {
+        ensureChunks(chunks + 1);
+        if (itemIds[chunks] == null)
+            allocateChunk(chunks);
+        chunks++;
+    }
+
+    /**
+     * This method will make the arrays of chunks long enough for the given number of chunks.
+     * @param count is the number of chunks
+     */
+    private void ensureChunks (int count) {
+        if (count > itemIds.length) {
+            int length = Math.max(Math.max(4, count), itemIds.length * 2);
+            itemIds = Arrays.copyOf(itemIds, length);
+            prices = Arrays.copyOf(prices, length);
+            timestamps = Arrays.copyOf(timestamps, length);
+            quantities = Arrays.copyOf(quantities, length);
+        }
+    }
+
+    /**
+     * This method will allocate the columns of a chunk.
+     * @param chunk is the position of the chunk
+     */
+    private void allocateChunk (int chunk) {
+        itemIds[chunk] = new int[CHUNK_SIZE];
+        prices[chunk] = new long[CHUNK_SIZE];
+        timestamps[chunk] = new long[CHUNK_SIZE];
+        quantities[chunk] = new int[CHUNK_SIZE];
+    }
+
+    /**
+     * This method will remove every transaction. The chunks are kept to be filled again.
+     */
+    public void clear () {
+        size = 0;
+        chunks = 0;
+        segment = null;
+        unloaded = 0;
+    }
+
+    /**
+     * This method will replace the transactions of the store with the first ones of a segment,
+     * which are read the first time one of them is looked at.
+     * @param rows is the number of transactions in the segment that belong to the store
+     * @param segment is the segment holding them
+     */
+    void restore (int rows, TransactionSegment segment) {
+        clear();
+        this.segment = rows > 0 ? segment : null;
+        unloaded = rows;
+        size = rows;
+        chunks = rows >>> CHUNK_BITS;
+        ensureChunks(chunks + 1);
+
+        // The chunk the next transaction goes into already exists, so appending never reads the segment
+        if ((rows & CHUNK_MASK) != 0)
+            addChunk();
+    }
+
+    /**
+     * This method will read the transactions that are still in the segment.
+     * @throws UncheckedIOException if the segment cannot be read
+     */
+    private void load () {
+        for (int chunk = 0; chunk < unloaded >>> CHUNK_BITS; chunk++)
+            if (itemIds[chunk] == null)
+                allocateChunk(chunk);
+        try {
+            segment.readInto(this, unloaded);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segment = null;
+        unloaded = 0;
+    }
+
+    /**
+     * This method will write a transaction at a position of the store, when it is read from a segment.
+     * @param index is the position of the transaction
+     * @param itemId is the catalog ID of the item
+     * @param price is the price of a single unit, in centavos
+     * @param quantity is the number of units sold
+     * @param timestamp is the time of the sale, in milliseconds since the epoch
+     */
+    void set (int index, int itemId, long price, int quantity, long timestamp) {
+        int chunk = index >>> CHUNK_BITS;
+        int offset = index & CHUNK_MASK;
+
+        itemIds[chunk][offset] = itemId;
+        prices[chunk][offset] = price;
+        quantities[chunk][offset] = quantity;
+        timestamps[chunk][offset] = timestamp;
+    }
+
+    /**
+     * This method will retrieve the number of transactions in the store.
+     * @return the number of transactions
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * This method will retrieve the item ID of a transaction.
+     * @param index is the position of the transaction
+     * @return the catalog ID of the item
+     */
+    public int getItemId (int index) {
+        checkIndex(index);
+        return itemIds[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * This method will retrieve the unit price of a transaction.
+     * @param index is the position of the transaction
+     * @return the price of a single unit, in centavos
+     */
+    public long getPrice (int index) {
+        checkIndex(index);
+        return prices[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * This method will retrieve the quantity of a transaction.
+     * @param index is the position of the transaction
+     * @return the number of units sold
+     */
+    public int getQuantity (int index) {
+        checkIndex(index);
+        return quantities[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * This method will retrieve the time of a transaction.
+     * @param index is the position of the transaction
+     * @return the time of the sale, in milliseconds since the epoch
+     */
+    public long getTimestamp (int index) {
+        checkIndex(index);
+        return timestamps[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * This method will check that a position holds a transaction, and read the transactions still in the
+     * segment if it is one of them.
+     * @param index is the position to check
+     * @throws IndexOutOfBoundsException if there is no transaction at that position
+     */
+    private void checkIndex (int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index < unloaded)
+            load();
+    }
+}
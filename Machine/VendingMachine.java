@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 /**
  * The VendingMachine class represents a vending machine that sells items.
  * It manages the machine's name, number of slots, cash holders, item slots, inventory, and purchase transactions.
@@ -12,12 +14,25 @@ public class VendingMachine implements Maintenance{
     private String machineName;
     private final int NUMBER_OF_SLOTS;
     private final int MAXIMUM = 30;
+    private final long TRACKED_CHANGE = 1000 * Money.CENTAVOS_PER_PESO;
+    private final long EXACT_CHANGE_RANGE = 100 * Money.CENTAVOS_PER_PESO;
     private CashHolder machineReserve;
     private CashHolder consumer;
     private ArrayList<Slot> itemSlots;
+    private HashMap<Integer, Slot> slotsByNumber;
+    private ItemCatalog catalog;
+    private Slot[] slotsById;
+    private int layoutVersion;
     private TransactionRecord record;
-    private double receivedTotal;
+    private long receivedTotal;
     private int itemCount;
+    private ChangeMaker changeMaker;
+    private volatile ChangeAvailability changeAvailability;
+    private PurchaseJournal journal;
+    private ArrayList<LayoutListener> layoutListeners = new ArrayList<LayoutListener>();
+    private ArrayList<Slot> changedSlots = new ArrayList<Slot>();
+    private int layoutChanges;
+    private final ItemListener priceListener = (item, previousPrice, newPrice) -> this.itemPriceChanged(item);
 
     /**
      * Constructs a VendingMachine object with the specified name, number of slots, and item list.
@@ -48,14 +63,179 @@ public class VendingMachine implements Maintenance{
         machineReserve = new CashHolder (name);
         consumer = new CashHolder("Consumer");
         itemSlots = new ArrayList<Slot>();
-        record = new TransactionRecord();
+        slotsByNumber = new HashMap<Integer, Slot>();
+        catalog = new ItemCatalog();
+        slotsById = new Slot[NUMBER_OF_SLOTS];
+        record = new TransactionRecord(catalog);
         receivedTotal = 0;
+        changeMaker = new BoundedChangeMaker();
+        changeAvailability = new ChangeAvailability(machineReserve, TRACKED_CHANGE);
 
         for (int i = 0; i < NUMBER_OF_SLOTS; i++) {
             itemSlots.add(new Slot(itemSlots.size() + 1, slotMaximum));
+            slotsByNumber.put(itemSlots.size(), itemSlots.get(itemSlots.size() - 1));
         }
     }
 
+    /**
+     * This method will retrieve the regular slot with the given slot number.
+     * @param slotNumber is the number of the slot
+     * @return the slot with that number, or null if there is none
+     */
+    public Slot getSlot (int slotNumber) {
+        return slotsByNumber.get(slotNumber);
+    }
+
+    /**
+     * This method will retrieve the regular slot that holds the item with the given name.
+     * The index only follows names changed through renameItem.
+     * @param name is the name of the item, ignoring case
+     * @return the slot holding that item, or null if there is none
+     */
+    public Slot getSlot (String name) {
+        return name == null ? null : this.getSlotByItemId(catalog.getId(name));
+    }
+
+    /**
+     * This method will retrieve the regular slot that holds the item with the given catalog ID.
+     * @param id is the catalog ID of the item
+     * @return the slot holding that item, or null if there is none
+     */
+    Slot getSlotByItemId (int id) {
+        return id >= 0 && id < slotsById.length ? slotsById[id] : null;
+    }
+
+    /**
+     * This method will retrieve the version of the slot layout, which changes every time
+     * a slot is given a new item or removed. Compiled compound recipes use it to know when
+     * they have to be compiled again.
+     * @return the current slot layout version
+     */
+    int getLayoutVersion () {
+        return layoutVersion;
+    }
+
+    /**
+     * This method will retrieve the catalog that gives every item name of the machine its ID.
+     * @return the item catalog of the vending machine
+     */
+    public ItemCatalog getCatalog () {
+        return catalog;
+    }
+
+    /**
+     * This method will add the item held by a regular slot to the index of slots by item ID.
+     * Must be called whenever a slot is given a new item.
+     * @param slot is the slot that was given a new item
+     */
+    void indexItem (Slot slot) {
+        int id = catalog.intern(slot.getItem());
+
+        if (id >= slotsById.length)
+            slotsById = Arrays.copyOf(slotsById, Math.max(id + 1, slotsById.length * 2));
+        slotsById[id] = slot;
+        slot.setItemId(id);
+        slot.getItem().addListener(priceListener);
+        layoutVersion++;
+    }
+
+    /**
+     * This method will register a listener that is told every time the slot layout of the machine changes.
+     * @param listener is the listener to register
+     */
+    public void addLayoutListener (LayoutListener listener) {
+        if (!layoutListeners.contains(listener))
+            layoutListeners.add(listener);
+    }
+
+    /**
+     * This method will remove a listener that was registered with addLayoutListener.
+     * @param listener is the listener to remove
+     */
+    public void removeLayoutListener (LayoutListener listener) {
+        layoutListeners.remove(listener);
+    }
+
+    /**
+     * This method will retrieve the listener the machine registers on the items it holds, to follow their prices.
+     * @return the price listener of the machine
+     */
+    ItemListener getPriceListener () {
+        return priceListener;
+    }
+
+    /**
+     * This method will start a change of the layout made of several steps, such as giving a slot to a compound item.
+     * The layout listeners are only told once the change ends, so they never see the layout halfway through.
+     */
+    void beginLayoutChange () {
+        layoutChanges++;
+    }
+
+    /**
+     * This method will end a change of the layout started by beginLayoutChange and tell the layout listeners.
+     */
+    void endLayoutChange () {
+        if (--layoutChanges == 0)
+            this.fireLayoutChanged();
+    }
+
+    /**
+     * This method will tell the layout listeners that a slot changed, or keep it for the end of the change in progress.
+     * @param slot is the slot that changed
+     */
+    void layoutChanged (Slot slot) {
+        if (!changedSlots.contains(slot))
+            changedSlots.add(slot);
+        if (layoutChanges == 0)
+            this.fireLayoutChanged();
+    }
+
+    /**
+     * This method will tell the layout listeners about every slot that changed.
+     */
+    private void fireLayoutChanged () {
+        if (changedSlots.isEmpty())
+            return;
+
+        Slot[] slots = changedSlots.toArray(new Slot[0]);
+        changedSlots.clear();
+        for (Slot slot : slots)
+            for (int i = 0; i < layoutListeners.size(); i++)
+                layoutListeners.get(i).layoutChanged(this, slot);
+    }
+
+    /**
+     * This method will tell the layout listeners that the price of an item held by the machine changed.
+     * @param item is the item whose price changed
+     */
+    void itemPriceChanged (Item item) {
+        Slot slot = this.getSlot(item.getName());
+
+        if (slot != null && slot.getItem() == item)
+            this.layoutChanged(slot);
+    }
+
+    /**
+     * This method will rename an item of the vending machine and keep the name index up to date.
+     * Items held by the machine must always be renamed through this method, never with Item.setName.
+     * @param name is the current name of the item
+     * @param newName is the new name of the item
+     * @return true if the item was renamed, false if it does not exist or the new name is taken
+     */
+    public boolean renameItem (String name, String newName) {
+        Slot slot = this.getSlot(name);
+
+        if (slot == null || (this.getSlot(newName) != null && this.getSlot(newName) != slot))
+            return false;
+
+        if (!catalog.rename(slot.getItemId(), newName))
+            return false;
+        slot.getItem().setName(newName);
+        this.layoutChanged(slot);
+        return true;
+    }
+
     /**
      * This method will retrieve the number of items that the machine currently has
      * 
@@ -72,12 +252,9 @@ public class VendingMachine implements Maintenance{
      * @return the slot number that corresponds to the name given. Otherwise, -1 will be returned.
      */
     public int getSlotNumber (String name) {
+        Slot slot = this.getSlot(name);
 
-        for (int i = 0; i < itemSlots.size(); i++)
-            if (itemSlots.get(i).getItem().getName().equalsIgnoreCase(name))
-                return itemSlots.get(i).getSlotNum();
-        return -1;
-
+        return slot != null ? slot.getSlotNum() : -1;
     }
 
     /**
@@ -125,16 +302,95 @@ public class VendingMachine implements Maintenance{
      */
     public boolean acceptMoney (Denomination denomination, int quantity) {
         if (quantity > 0) {
+            this.checkJournal();
 
-            receivedTotal += (denomination.getValue() * quantity);
+            receivedTotal = Money.add(receivedTotal, Money.multiply(denomination.getCentavos(), quantity));
             consumer.addCash(denomination, quantity);
-            System.out.println("[" + denomination.getValue() + ", " + quantity + "] " + "has been accepted");
-            System.out.println("Received Total: " + receivedTotal);
+            if (journal != null)
+                journal.deposit(denomination, quantity);
+            MachineLog.debug(() -> "[" + denomination.getValue() + ", " + quantity + "] " + "has been accepted");
+            MachineLog.debug(() -> "Received Total: " + Money.format(receivedTotal));
             return true;
         }
         return false;
     }
 
+    /**
+     * This method will retrieve the cash holder of the machine's reserve.
+     * @return the machine reserve
+     */
+    CashHolder getMachineReserve () {
+        return machineReserve;
+    }
+
+    /**
+     * This method will attach a journal that the events of the machine are written to, replacing
+     * the previous one. The journal follows the machine reserve as a CashListener, and the slot layout as a LayoutListener.
+     * @param journal is the journal to attach, or null to stop journaling
+     */
+    public void setJournal (PurchaseJournal journal) {
+        if (this.journal != null) {
+            machineReserve.removeListener(this.journal);
+            this.removeLayoutListener(this.journal);
+        }
+        this.journal = journal;
+        if (journal != null) {
+            machineReserve.addListener(journal);
+            this.addLayoutListener(journal);
+        }
+    }
+
+    /**
+     * This method will retrieve the journal that the events of the machine are written to.
+     * @return the journal, or null if the machine is not journaled
+     */
+    public PurchaseJournal getJournal () {
+        return journal;
+    }
+
+    /**
+     * This method will stop an event before it changes the machine if its journal can no longer be written,
+     * so the machine never gets ahead of what a restart would restore.
+     * @throws java.io.UncheckedIOException if a write or fsync of the journal failed
+     */
+    void checkJournal () {
+        if (journal != null)
+            journal.checkWritable();
+    }
+
+    /**
+     * This method will start an event, such as a purchase, whose journal records must be committed together.
+     * @return the journal the event is written to, or null if the machine is not journaled
+     */
+    PurchaseJournal beginEvent () {
+        PurchaseJournal current = journal;
+
+        if (current != null)
+            current.beginGroup();
+        return current;
+    }
+
+    /**
+     * This method will end an event started by beginEvent, appending its journal records as one.
+     * @param current is the journal returned by beginEvent
+     */
+    static void endEvent (PurchaseJournal current) {
+        if (current != null)
+            current.endGroup();
+    }
+
+    /**
+     * This method will record the sale of several units of the item in a slot, in the transaction record
+     * and in the journal.
+     * @param slot is the slot of the item that was sold
+     * @param quantity is the number of units sold
+     */
+    void recordSale (Slot slot, int quantity) {
+        record.addTransaction(slot.getItemId(), slot.getItem().getPriceCentavos(), quantity);
+        if (journal != null)
+            journal.purchase(slot.getSlotNum(), slot.getItemId(), quantity, slot.getItem().getPriceCentavos());
+    }
+
     /**
      * This method will retrieve the balance of the vending machine's reserve.
      * @return the machine reserve balance
@@ -151,46 +407,102 @@ public class VendingMachine implements Maintenance{
      * @return true if the item was successfully selected, false otherwise
      */
     public Item buyRegularItem(int slotNumber, CashHolder destination, SlotPanel panel) {
-        System.out.println("Selecting Item...");
-    
-        for (Slot slot : this.itemSlots) {
-            if (slot.getSlotNum() == slotNumber) {
-                System.out.println("Slot Exists");
+        return this.buyRegularItem(slotNumber, 1, destination, panel);
+    }
+
+    /**
+     * Buys several units of the item in the given slot as a single purchase and shows the change on the panel.
+     * @param slotNumber the number of the slot
+     * @param quantity the number of units to buy
+     * @param destination is the target of the transfer for the change
+     * @param panel is the panel that corresponds to this purchase
+     * @return the item that was bought, or null if the purchase was not successful
+     */
+    public Item buyRegularItem(int slotNumber, int quantity, CashHolder destination, SlotPanel panel) {
+        PurchaseResult result = this.purchase(slotNumber, quantity, destination);
+
+        if (!result.isSuccessful())
+            return null;
+
+        panel.setChange(Money.toPesos(result.getChangeCentavos()));
+        return result.getItem();
+    }
+
+    /**
+     * Buys several units of the item in the given slot as a single purchase, without any user interface.
+     * The stock is checked and deducted once, the change is computed once for the whole amount
+     * and the purchase is stored as one transaction.
+     * @param slotNumber the number of the slot
+     * @param quantity the number of units to buy
+     * @param destination is the target of the transfer for the change
+     * @return the result of the purchase, with the item and the change if it was successful
+     */
+    public PurchaseResult purchase(int slotNumber, int quantity, CashHolder destination) {
+        MachineLog.debug("Selecting Item...");
+        this.checkJournal();
     
-                if (slot.getQuantity() > 0) {
-                    System.out.println("Item Available");
+        Slot slot = this.getSlot(slotNumber);
+
+        if (slot != null) {
+            MachineLog.debug("Slot Exists");
     
-                    if (this.hasChange(slot.getItem().getPrice())) {
-                        System.out.println("Machine has Change");
+            if (quantity <= 0) {
+                MachineLog.warn("ERROR: Invalid Quantity.");
+                return PurchaseResult.failure(PurchaseStatus.INVALID_QUANTITY);
+            }
+            if (slot.getQuantity() >= quantity) {
+                MachineLog.debug("Item Available");
     
-                        if (this.hasSufficientBalance(slot)) {
-                            System.out.println("Sufficient Balance");
+                long price = Money.multiply(slot.getItem().getPriceCentavos(), quantity);
+                ChangePlan plan = this.planChange(price);
+
+                if (plan != null) {
+                    MachineLog.debug("Machine has Change");
     
-                            slot.deductQuantity(1);
-                            System.out.println("[ " + slot.getItem().getName() + " ] has been purchased");
-                            panel.setChange(this.giveChange(destination, slot.getItem().getPrice()));
-                            this.completePurchase();
-                            record.addTransaction(slot.getItem().getName(), slot.getItem().getPrice());
-                            System.out.println("Updated Machine: " + machineReserve.getTotal());
-                            return slot.getItem();
-                        } else {
-                            System.out.println("ERROR: Insufficient Balance.");
-                            return null;
+                    if (this.hasSufficientBalance(slot, quantity)) {
+                        MachineLog.debug("Sufficient Balance");
+
+                        StockReservation reservation = StockReservation.reserve(slot, quantity);
+
+                        if (reservation == null) {
+                            MachineLog.warn("ERROR: Insufficient Quantity.");
+                            return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_QUANTITY);
                         }
+                        // The reserve changes and the sale are journaled as one event
+                        PurchaseJournal events = this.beginEvent();
+                        try {
+                            if (!this.completePurchase(plan, destination)) {
+                                reservation.release();
+                                MachineLog.warn("ERROR: Change is no longer available.");
+                                this.cancelTransaction(destination);
+                                return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_CHANGE);
+                            }
+                            reservation.commit();
+                            MachineLog.debug(() -> "[ " + slot.getItem().getName() + " ] has been purchased");
+                            this.recordSale(slot, quantity);
+                        }
+                        finally {
+                            endEvent(events);
+                        }
+                        MachineLog.debug(() -> "Updated Machine: " + machineReserve.getTotal());
+                        return PurchaseResult.success(slot.getItem(), quantity, price, plan);
                     } else {
-                        System.out.println("ERROR: Insufficient Change.");
-                        this.cancelTransaction(destination);
-                        return null;
+                        MachineLog.warn("ERROR: Insufficient Balance.");
+                        return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_BALANCE);
                     }
                 } else {
-                    System.out.println("ERROR: Insufficient Quantity.");
-                    return null;
+                    MachineLog.warn("ERROR: Insufficient Change.");
+                    this.cancelTransaction(destination);
+                    return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_CHANGE);
                 }
+            } else {
+                MachineLog.warn("ERROR: Insufficient Quantity.");
+                return PurchaseResult.failure(PurchaseStatus.INSUFFICIENT_QUANTITY);
             }
         }
         
-        System.out.println("ERROR: Slot is not Available");
-        return null;
+        MachineLog.warn("ERROR: Slot is not Available");
+        return PurchaseResult.failure(PurchaseStatus.SLOT_NOT_FOUND);
     }
     
 
@@ -213,25 +525,69 @@ public class VendingMachine implements Maintenance{
      * @return true if the machine has enough change, false otherwise
      */
     public boolean hasChange(double value) {
-        if (value < 0)
-            return false;
+        return hasChangeCentavos(Money.fromPesos(value));
+    }
 
-        double change = receivedTotal - value;
+    /**
+     * Checks if the vending machine has enough change to give back to the consumer.
+     * @param value the value for which change is required, in centavos
+     * @return true if the machine has enough change, false otherwise
+     */
+    public boolean hasChangeCentavos(long value) {
+        return planChange(value) != null;
+    }
 
-        while (change > 0) {
-            Denomination denom = machineReserve.getGreatestDenomination(change);
-            if (denom == null)
-                return false;
-            int quantity = (int) (change / denom.getValue());
+    /**
+     * Computes the change for an item of the given price, based on the money received so far.
+     * The plan is only computed here; nothing is moved until it is given to completePurchase.
+     * If the money received does not cover the price, an empty plan is returned.
+     * @param price the price of the item being purchased, in centavos
+     * @return the plan for the change, or null if the machine cannot give the change
+     */
+    public ChangePlan planChange(long price) {
+        if (price < 0)
+            return null;
 
-            if (quantity <= machineReserve.countDenomination(denom.getValue())) {
-                change -= denom.getValue() * quantity;
-            }
-            else {
-                return false;
-            }
-        }
-        return true;
+        long change = receivedTotal - price;
+
+        if (change <= 0)
+            return changeMaker.makeChange(machineReserve, 0);
+        if (changeAvailability.covers(change) && !changeAvailability.canPay(change))
+            return null;
+        return changeMaker.makeChange(machineReserve, change);
+    }
+
+    /**
+     * Checks if the machine reserve can pay the given amount of change exactly.
+     * Amounts up to the tracked limit are answered in constant time.
+     * @param change the amount of change, in centavos
+     * @return true if the reserve can pay the change, false otherwise
+     */
+    public boolean canGiveChange(long change) {
+        if (changeAvailability.covers(change))
+            return changeAvailability.canPay(change);
+        return change > 0 && changeMaker.makeChange(machineReserve, change) != null;
+    }
+
+    /**
+     * Checks if the machine could give the change for an item of the given price,
+     * based on the money received so far. Used by the panels to grey out items.
+     * @param price the price of the item, in centavos
+     * @return true if the change can be given or no change is due yet, false otherwise
+     */
+    public boolean isChangeAvailable(long price) {
+        long change = receivedTotal - price;
+        return change <= 0 || canGiveChange(change);
+    }
+
+    /**
+     * Checks if the machine should only accept the exact amount, which is the case when
+     * the reserve cannot pay some whole peso amount of change up to 100 pesos.
+     * @return true if only exact amounts should be accepted, false otherwise
+     */
+    public boolean isExactChangeOnly() {
+        long smallest = changeAvailability.getSmallestUnpayable(Money.CENTAVOS_PER_PESO);
+        return smallest != -1 && smallest <= EXACT_CHANGE_RANGE;
     }
 
     /**
@@ -241,26 +597,49 @@ public class VendingMachine implements Maintenance{
      * @return the change that is being given
      */
     public double giveChange(CashHolder destination, double cost) {
+        return Money.toPesos(giveChangeCentavos(destination, Money.fromPesos(cost)));
+    }
+
+    /**
+     * Gives the change to the specified cash holder.
+     * @param destination is the cash holder that will receive the change
+     * @param cost is the cost of the item being purchased, in centavos
+     * @return the change that is being given, in centavos
+     */
+    public long giveChangeCentavos(CashHolder destination, long cost) {
         if (cost < 0)
             return 0;
-        System.out.println("\n\nGiving Change...");
-        double value = consumer.getTotal() - cost;
-        double change = value;
-            
-            if (value > 0.0) {
-                while (Math.abs(value) > 0.0) {
-                    Denomination denom = machineReserve.getGreatestDenomination(value);
-                    int quantity = (int) (value / denom.getValue());
-                    System.out.println("Check B");
-                    
-                    if (quantity <= machineReserve.countDenomination(denom.getValue())) {
-                        System.out.println("Value: " + denom.getValue() + "| Quantity: " + quantity);
-                        this.machineReserve.transferMoney(destination, denom, quantity);
-                        value -= denom.getValue() * quantity;
-                    }
-                }
-            }
-        return change;
+        this.checkJournal();
+        MachineLog.debug("\n\nGiving Change...");
+        ChangePlan plan = this.planChange(cost);
+
+        if (plan == null) {
+            MachineLog.warn("ERROR: Insufficient Change.");
+            return 0;
+        }
+
+        synchronized (machineReserve) {
+            if (!plan.isPayableFrom(machineReserve))
+                return 0;
+            plan.payOut(machineReserve, destination);
+        }
+        return plan.getTotalCentavos();
+    }
+
+    /**
+     * This method will set the algorithm used to decide which coins and bills are given as change.
+     * @param changeMaker is the change maker that will be used
+     */
+    public void setChangeMaker (ChangeMaker changeMaker) {
+        this.changeMaker = changeMaker;
+    }
+
+    /**
+     * This method will retrieve the algorithm used to decide which coins and bills are given as change.
+     * @return the change maker of the vending machine
+     */
+    public ChangeMaker getChangeMaker () {
+        return changeMaker;
     }
 
     /**
@@ -269,12 +648,9 @@ public class VendingMachine implements Maintenance{
      * @return true if the machine contains the item, false otherwise
      */
     public boolean hasItem (Item item) {
+        Slot slot = this.getSlot(item.getName());
 
-        for(Slot slot : itemSlots)
-            if (slot.getItem() != null)
-                if (slot.getItem().equals(item))
-                    return true;
-        return false;
+        return slot != null && slot.getItem().equals(item);
     }
 
     /**
@@ -294,21 +670,24 @@ public class VendingMachine implements Maintenance{
      * @return true if the item was successfully inserted, false otherwise
      */
     public int insertInEmpty (Item item, int quantity) {
-        System.out.println("Inserting Item...");
+        MachineLog.debug("Inserting Item...");
 
-        if (this.hasItem(item)) {
-            System.out.println("Machine already contains [" + item.getName() + "]\n");
+        if (this.getSlot(item.getName()) != null) {
+            MachineLog.warn(() -> "Machine already contains [" + item.getName() + "]\n");
         }
         else {
             for (int i = 0; i < itemSlots.size(); i++) {
                 if (itemSlots.get(i).getItem() == null && itemSlots.get(i) != null) {
                     itemSlots.get(i).setItem(item, quantity);
-                    System.out.println("The item [" + item.getName() + "] was inserted in Slot " + itemSlots.get(i).getSlotNum() + "\n");
+                    this.indexItem(itemSlots.get(i));
+                    int slotNum = itemSlots.get(i).getSlotNum();
+                    MachineLog.info(() -> "The item [" + item.getName() + "] was inserted in Slot " + slotNum + "\n");
                     this.itemCount++;
+                    this.layoutChanged(itemSlots.get(i));
                     return 1;
                 }
             }
-            System.out.println("Machine is Full\n");
+            MachineLog.warn("Machine is Full\n");
             return -1;
         }
         return 0;
@@ -316,33 +695,48 @@ public class VendingMachine implements Maintenance{
 
     /**
      * This method will increase the quantity to an existing item in the vending machine by a specified amount.
+     * A restock visit that tops up several slots ends with a single call to sealEpoch.
      * @param name is the name of the item
      * @param quantity is the quantity that will be added
      * @return true if the quantity was added successfully, false otherwise
      */
     public boolean addItemQuantity (String name, int quantity) {
-        System.out.println("Adding Quantity...");
+        MachineLog.debug("Adding Quantity...");
+        this.checkJournal();
 
-        for (int i = 0; i < itemSlots.size(); i++) {
-            if (itemSlots.get(i) != null && itemSlots.get(i).getItem() != null) {
+        Slot slot = this.getSlot(name);
 
-                if (itemSlots.get(i).getItem().getName().equalsIgnoreCase(name)) {
-                    if (itemSlots.get(i).addQuantity(quantity)) {
-                        System.out.println("The quantity of item [" + itemSlots.get(i).getItem().getName() + "] has been increased by <" + quantity + ">\n");
-                        record.resetRecord();
-                        return true;
-                    }
-                    else {
-                        System.out.println("ERROR: Adding Failed");
-                        return false;
-                    }
-                }
+        if (slot != null) {
+            if (slot.addQuantity(quantity)) {
+                MachineLog.info(() -> "The quantity of item [" + slot.getItem().getName() + "] has been increased by <" + quantity + ">\n");
+                if (journal != null)
+                    journal.restock(slot.getSlotNum(), quantity);
+                return true;
+            }
+            else {
+                MachineLog.warn("ERROR: Adding Failed");
+                return false;
             }
         }
-        System.out.println("- Item does not exist -\n");
+        MachineLog.warn("- Item does not exist -\n");
         return false;
     }
 
+    /**
+     * This method will end a restock visit by sealing the sales since the last visit as an epoch of the
+     * transaction record, so the sales report starts over while the all time totals are kept.
+     * Nothing is sealed if nothing was sold since the last visit.
+     * @return true if an epoch was sealed
+     */
+    public boolean sealEpoch () {
+        this.checkJournal();
+        if (!record.sealEpoch())
+            return false;
+        if (journal != null)
+            journal.epoch();
+        return true;
+    }
+
     /**
      * This method will display the slots that require maintenance.
      */
@@ -382,24 +776,20 @@ public class VendingMachine implements Maintenance{
      * @param quantity the quantity of cash to deposit
      */
     public void depositMachineReserve(Denomination denom, int quantity) {
+        this.checkJournal();
         machineReserve.addCash(denom, quantity);
-        System.out.println("Total: " + machineReserve.getTotal());
+        MachineLog.debug(() -> "Total: " + machineReserve.getTotal());
     }
 
     /**
-     * This method will display the sales information of the vending machine.
+     * This method will display the sales information of the vending machine, since the last restock and of all time.
      */
     public void displaySales () {
         for (Slot slot : this.itemSlots) {
-            int count = 0;
-            
-            for (Transaction transaction : this.record.getTransactions()) {
-                if (slot.getItem().getName().equalsIgnoreCase(transaction.getName())) {
-                    count++;
-                }
-            }
+            int count = this.record.getQuantitySold(slot.getItemId());
+            int allTime = this.record.getAllTimeQuantitySold(slot.getItemId());
 
-            System.out.println("Item: " + slot.getItem().getName() + "| Quantity Sold: " + count);
+            System.out.println("Item: " + slot.getItem().getName() + "| Quantity Sold: " + count + "| All Time: " + allTime);
         }
     }
 
@@ -412,17 +802,20 @@ public class VendingMachine implements Maintenance{
      * @return the slot number of the removed slot if successful, or 0 if removal is unsuccessful
     */
     public int removeSlot() {
-        System.out.println("Removing Slot...");
+        MachineLog.debug("Removing Slot...");
         for (int i = itemSlots.size() - 1; i >= 0; i--) {
             if (itemSlots.get(i).getItem() == null) {
                 int slotNum = itemSlots.get(i).getSlotNum();
-                itemSlots.remove(i);
+                Slot removed = itemSlots.remove(i);
+                slotsByNumber.remove(slotNum);
+                layoutVersion++;
                 this.itemCount--;
-                System.out.println("Slot Successfully Removed");
+                MachineLog.info("Slot Successfully Removed");
+                this.layoutChanged(removed);
                 return slotNum;
             }
         }
-        System.out.println("Removal Unsuccessfull");
+        MachineLog.warn("Removal Unsuccessfull");
         return 0;
     }
 
@@ -444,7 +837,30 @@ public class VendingMachine implements Maintenance{
      */
 
     public boolean hasSufficientBalance (Slot slot) {
-        return receivedTotal >= slot.getItem().getPrice();
+        return this.hasSufficientBalance(slot, 1);
+    }
+
+    /**
+     * Checks if the money received so far pays for several units of the item in a slot.
+     * 
+     * @param slot the slot for which to check the balance
+     * @param quantity the number of units being bought
+     * @return true if the machine has sufficient balance, false otherwise
+     */
+
+    public boolean hasSufficientBalance (Slot slot, int quantity) {
+        return this.hasSufficientBalanceCentavos(Money.multiply(slot.getItem().getPriceCentavos(), quantity));
+    }
+
+    /**
+     * Checks if the money received so far pays for the given amount.
+     * 
+     * @param amount the amount to pay, in centavos
+     * @return true if the machine has sufficient balance, false otherwise
+     */
+
+    public boolean hasSufficientBalanceCentavos (long amount) {
+        return receivedTotal >= amount;
     }
 
     /**
@@ -452,13 +868,43 @@ public class VendingMachine implements Maintenance{
      */
 
     public void completePurchase() {
-        System.out.println("Completing Purchase...");
+        MachineLog.debug("Completing Purchase...");
+        this.checkJournal();
         consumer.transferAll(machineReserve);
-        System.out.println("Consumer: " + consumer.getTotal());
-        System.out.println("Machine: " + machineReserve.getTotal());
+        MachineLog.debug(() -> "Consumer: " + consumer.getTotal());
+        MachineLog.debug(() -> "Machine: " + machineReserve.getTotal());
         receivedTotal = 0;
     }
 
+    /**
+     * Completes the purchase by paying the planned change out of the machine reserve and then
+     * transferring the money from the consumer to the machine reserve.
+     * Both steps happen while the reserve is locked, and nothing is moved if the reserve can
+     * no longer pay the plan.
+     *
+     * @param plan the change computed by planChange for this purchase
+     * @param destination the cash holder that will receive the change
+     * @return true if the purchase was completed, false if the plan could not be paid
+     */
+
+    public boolean completePurchase(ChangePlan plan, CashHolder destination) {
+        MachineLog.debug("Completing Purchase...");
+        synchronized (machineReserve) {
+            if (!plan.isPayableFrom(machineReserve))
+                return false;
+
+            if (MachineLog.isEnabled(LogLevel.DEBUG)) {
+                for (int i = 0; i < plan.size(); i++)
+                    MachineLog.debug("Value: " + plan.getDenomination(i).getValue() + "| Quantity: " + plan.getQuantity(i));
+            }
+            plan.payOut(machineReserve, destination);
+            consumer.transferAll(machineReserve);
+            receivedTotal = 0;
+        }
+        MachineLog.debug(() -> "Machine: " + machineReserve.getTotal());
+        return true;
+    }
+
     /**
      * Cancels the transaction by returning the money from the consumer to the specified destination.
      * 
@@ -466,9 +912,13 @@ public class VendingMachine implements Maintenance{
      */
     
     public void cancelTransaction (CashHolder destination) {
-        System.out.println("Cancelling Transaction...");
+        MachineLog.debug("Cancelling Transaction...");
+        this.checkJournal();
+        long returned = consumer.getTotalCentavos();
         consumer.transferAll(destination);
-        System.out.println("Transaction Cancelled.");
+        if (journal != null)
+            journal.cancel(returned);
+        MachineLog.debug("Transaction Cancelled.");
         receivedTotal = 0;
     }
 
@@ -479,15 +929,26 @@ public class VendingMachine implements Maintenance{
      */
 
     public void collectAll(CashHolder destination) {
+        this.checkJournal();
+        long before = machineReserve.getTotalCentavos();
+        PurchaseJournal events = this.beginEvent();
+
         try {
             while (this.machineReserve.getTotal() > 0) {
-                System.out.println("Collecting...");
+                MachineLog.debug("Collecting...");
                 machineReserve.transferAll(destination);
-                System.out.println("Collecting Complete");
+                MachineLog.info("Collecting Complete");
             }
         }
         catch (Exception e) {
-            System.out.println(e);
+            MachineLog.error(e.toString());
+        }
+        try {
+            if (journal != null)
+                journal.collect(before - machineReserve.getTotalCentavos());
+        }
+        finally {
+            endEvent(events);
         }
     }
 
@@ -509,6 +970,260 @@ public class VendingMachine implements Maintenance{
         itemCount++;
     }
 
+    /**
+     * Retrieves the cash holder of the money received from the consumer for the transaction in progress.
+     * 
+     * @return the consumer cash holder
+     */
+
+    CashHolder getConsumer () {
+        return consumer;
+    }
+
+    /**
+     * Sets the number of items of the vending machine, when it is restored from a snapshot.
+     * 
+     * @param itemCount the number of items
+     */
+
+    void setItemCount (int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * Puts an item with its quantity into the regular slot with the given number, when the machine is
+     * restored from a snapshot. The item count is not changed.
+     * 
+     * @param slotNumber the number of the slot
+     * @param item the item of the slot
+     * @param quantity the quantity of the item
+     */
+
+    void restoreSlot (int slotNumber, Item item, int quantity) {
+        Slot slot = this.getSlot(slotNumber);
+
+        slot.setItem(item, quantity);
+        this.indexItem(slot);
+    }
+
+    /**
+     * Removes the regular slot with the given number, when the machine is restored from a snapshot
+     * and that slot number was given to a compound item.
+     * 
+     * @param slotNumber the number of the slot
+     * @return true if the slot was removed, false if there is no such slot
+     */
+
+    boolean dropSlot (int slotNumber) {
+        Slot slot = slotsByNumber.remove(slotNumber);
+
+        if (slot == null)
+            return false;
+        itemSlots.remove(slot);
+        layoutVersion++;
+        return true;
+    }
+
+    /**
+     * Stops updating the table of payable change while a journal is replayed. Only the reserve at the end
+     * of the replay matters, so the table is built once by endReplay instead of after every event.
+     */
+
+    void beginReplay () {
+        machineReserve.removeListener(changeAvailability);
+    }
+
+    /**
+     * Builds the table of payable change again from the reserve, after a journal was replayed.
+     */
+
+    void endReplay () {
+        changeAvailability = new ChangeAvailability(machineReserve, TRACKED_CHANGE);
+    }
+
+    /**
+     * Applies a purchase read from the journal: the stock is taken from the slot, the transaction is
+     * recorded at its original time, and the money of the consumer is cleared since it went to the reserve.
+     * The reserve itself is brought back by the reserve events of the journal. A purchase from a slot that
+     * does not hold the item is not recorded as a sale.
+     * 
+     * @param slotNumber the number of the slot
+     * @param itemId the catalog ID of the item
+     * @param quantity the number of units bought
+     * @param centavos the price of a single unit, in centavos
+     * @param timestamp the time of the purchase, in milliseconds since the epoch
+     */
+
+    void replayPurchase (int slotNumber, int itemId, int quantity, long centavos, long timestamp) {
+        if (this.replayStock(slotNumber, itemId, quantity))
+            record.addTransaction(itemId, centavos, quantity, timestamp);
+        else
+            MachineLog.warn(() -> "ERROR: Journal purchase of item " + itemId + " from slot " + slotNumber + " does not match the machine.");
+        this.clearConsumer();
+    }
+
+    /**
+     * Takes the stock of a purchase read from the journal.
+     * 
+     * @param slotNumber the number of the slot
+     * @param itemId the catalog ID of the item
+     * @param quantity the number of units bought
+     * @return true if the slot holds that item, false if the purchase does not match the machine and is skipped
+     */
+
+    boolean replayStock (int slotNumber, int itemId, int quantity) {
+        Slot slot = this.getSlot(slotNumber);
+
+        if (slot == null || slot.getItem() == null || slot.getItemId() != itemId)
+            return false;
+        slot.deductQuantity(quantity);
+        return true;
+    }
+
+    /**
+     * Applies a deposit read from the journal.
+     * 
+     * @param denomination the denomination of the cash
+     * @param quantity the number of denominations accepted
+     */
+
+    void replayDeposit (Denomination denomination, int quantity) {
+        receivedTotal = Money.add(receivedTotal, Money.multiply(denomination.getCentavos(), quantity));
+        consumer.addCash(denomination, quantity);
+    }
+
+    /**
+     * Applies a cancelled transaction read from the journal.
+     */
+
+    void replayCancel () {
+        this.clearConsumer();
+    }
+
+    /**
+     * Applies a restock read from the journal.
+     * 
+     * @param slotNumber the number of the slot
+     * @param quantity the number of units added
+     */
+
+    void replayRestock (int slotNumber, int quantity) {
+        Slot slot = this.getSlot(slotNumber);
+
+        if (slot != null)
+            slot.addQuantity(quantity);
+    }
+
+    /**
+     * Applies the end of a restock visit read from the journal, sealing the sales so far as an epoch like sealEpoch.
+     * 
+     * @param timestamp the time of the visit, in milliseconds since the epoch
+     */
+
+    void replayEpoch (long timestamp) {
+        record.sealEpoch(timestamp);
+    }
+
+    /**
+     * Finds the item of the machine with the name of an item read from the journal, so a required item
+     * of a compound item refers to the same item as its regular slot.
+     * 
+     * @param item the item read from the journal
+     * @return the item of the machine with that name, or the item read if there is none
+     */
+
+    Item replayItem (Item item) {
+        int id = catalog.getId(item.getName());
+        Item known = (id >= 0) ? catalog.getItem(id) : null;
+
+        return known != null ? known : item;
+    }
+
+    /**
+     * Applies the state of a regular slot read from the journal: an item inserted in an empty slot is put in it
+     * with its quantity, and the item of a slot that has one is given the name, price and calories of the record.
+     * 
+     * @param slotNumber the number of the slot
+     * @param itemCount the number of items of the machine after the change
+     * @param item the item of the slot, as read from the journal
+     * @param quantity the quantity of the slot when the item was inserted
+     */
+
+    void replaySlot (int slotNumber, int itemCount, Item item, int quantity) {
+        Slot slot = this.getSlot(slotNumber);
+
+        if (slot == null) {
+            MachineLog.warn(() -> "ERROR: Journal layout of slot " + slotNumber + " does not match the machine.");
+            return;
+        }
+        if (slot.getItem() == null)
+            this.restoreSlot(slotNumber, this.replayItem(item), quantity);
+        this.replayItemState(slot, item);
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * Gives the item of a slot the name, price and calories of an item read from the journal.
+     * 
+     * @param slot the regular or compound slot
+     * @param state the item read from the journal
+     */
+
+    void replayItemState (Slot slot, Item state) {
+        Item item = slot.getItem();
+
+        if (!item.getName().equals(state.getName()) && catalog.rename(slot.getItemId(), state.getName()))
+            item.setName(state.getName());
+        item.setPriceCentavos(state.getPriceCentavos());
+        item.setCalories(state.getCalories());
+    }
+
+    /**
+     * Applies the removal of a regular slot read from the journal.
+     * 
+     * @param slotNumber the number of the slot
+     * @param itemCount the number of items of the machine after the change
+     */
+
+    void replayRemove (int slotNumber, int itemCount) {
+        this.dropSlot(slotNumber);
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * Applies a compound item read from the journal. A regular vending machine has no compound items,
+     * so the record is skipped.
+     * 
+     * @param slotNumber the number of the slot
+     * @param itemCount the number of items of the machine after the change
+     * @param item the compound item, with its final price and calories
+     * @param recipe the required items and their required quantities
+     */
+
+    void replayCompound (int slotNumber, int itemCount, Item item, ArrayList<RequiredItem> recipe) {
+        MachineLog.warn(() -> "ERROR: Journal compound item in slot " + slotNumber + " does not match the machine.");
+    }
+
+    /**
+     * Applies a change to the quantity of a denomination in the reserve read from the journal.
+     * 
+     * @param denomination the denomination whose quantity changed
+     * @param count the new quantity of the denomination
+     */
+
+    void replayReserve (Denomination denomination, int count) {
+        machineReserve.setCash(denomination, count);
+    }
+
+    /**
+     * Empties the consumer cash holder, whose money has already been given back or kept by the machine.
+     */
+
+    private void clearConsumer () {
+        consumer.transferAll(new CashHolder("Consumer"));
+        receivedTotal = 0;
+    }
+
     /**
      * Retrieves the transaction record of the vending machine.
      * 
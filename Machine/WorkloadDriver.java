@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The WorkloadDriver class measures how many customers a SpecialVendingMachine, or a fleet of them,
+ * can serve per second. Every machine of the fleet is driven by its own thread through the headless
+ * purchase API, with a random mix of customers:
+ * regular purchases, compound purchases, customers who cancel, and restock visits that fill every slot
+ * back up through addItemQuantity.
+ *
+ * Customers pay with the chosen deposit pattern: a single bill (bills), a handful of coins that covers
+ * the price (coins), or either of them at random (mixed). Every customer session is timed, from the
+ * first deposit to the end of the action, and the results are printed as CSV with the throughput and
+ * the 50th, 99th and 99.9th percentile latency of every kind of session.
+ *
+ * When a journal directory is given, every machine writes its events to its own PurchaseJournal there,
+ * committed in groups of the given batch size or time window in milliseconds.
+ *
+ * Usage: java WorkloadDriver [machines=1,4] [sessions=200000] [regular=70] [compound=20] [cancel=5]
+ *                            [restock=5] [deposit=mixed] [slots=16] [stock=50] [reserve=200] [recipe=3] [seed=42]
+ *                            [journal=directory] [batch=64] [window=5]
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class WorkloadDriver {
+    // Declaration of constants
+    private static final String[] ACTIONS = {"regular", "compound", "cancel", "restock"};
+    private static final Denomination[] BILLS = {new Denomination(100, "Bill"), new Denomination(200, "Bill")};
+    private static final Denomination[] COINS = {new Denomination(1, "Coin"), new Denomination(5, "Coin"),
+        new Denomination(10, "Coin"), new Denomination(20, "Coin")};
+    private static final int WARMUP_SESSIONS = 20000;
+
+    /**
+     * The Customers class holds the sessions that one machine served and how long each one took.
+     */
+    private static final class Customers {
+        // Declaration of variables
+        private final long[][] latencies = new long[ACTIONS.length][];
+        private final int[] counts = new int[ACTIONS.length];
+        private int purchases;
+        private int failures;
+
+        /**
+         * Constructs an empty record of sessions.
+         * @param sessions is the greatest number of sessions that will be recorded
+         */
+        private Customers (int sessions) {
+            for (int i = 0; i < ACTIONS.length; i++)
+                latencies[i] = new long[sessions];
+        }
+    }
+
+    /**
+     * Runs the workload.
+     * @param args is the optional list of parameters, written as name=value
+     * @throws InterruptedException if the main thread is interrupted while waiting for the fleet
+     * @throws IOException if a journal cannot be written
+     */
+    public static void main (String[] args) throws InterruptedException, IOException {
+        int[] fleets = BenchmarkHarness.intList(args, "machines", "1,4");
+        int sessions = BenchmarkHarness.intList(args, "sessions", "200000")[0];
+        int[] weights = {BenchmarkHarness.intList(args, "regular", "70")[0], BenchmarkHarness.intList(args, "compound", "20")[0],
+            BenchmarkHarness.intList(args, "cancel", "5")[0], BenchmarkHarness.intList(args, "restock", "5")[0]};
+        String deposit = BenchmarkHarness.param(args, "deposit", "mixed");
+        int slots = BenchmarkHarness.intList(args, "slots", "16")[0];
+        int stock = BenchmarkHarness.intList(args, "stock", "50")[0];
+        int reserve = BenchmarkHarness.intList(args, "reserve", "200")[0];
+        int recipe = BenchmarkHarness.intList(args, "recipe", "3")[0];
+        long seed = Long.parseLong(BenchmarkHarness.param(args, "seed", "42"));
+        String journals = BenchmarkHarness.param(args, "journal", "");
+        int batch = BenchmarkHarness.intList(args, "batch", "64")[0];
+        int window = BenchmarkHarness.intList(args, "window", "5")[0];
+
+        MachineLog.setLevel(LogLevel.OFF);
+        System.out.println("machines,session,count,purchases,failures,seconds,sessionsPerSec,purchasesPerSec,p50Us,p99Us,p999Us");
+
+        for (int machines : fleets) {
+            SpecialVendingMachine[] fleet = new SpecialVendingMachine[machines];
+            Customers[] served = new Customers[machines];
+            Thread[] threads = new Thread[machines];
+
+            for (int m = 0; m < machines; m++) {
+                fleet[m] = CoreBenchmark.build(slots, stock, reserve, recipe);
+                run(fleet[m], new Customers(WARMUP_SESSIONS), WARMUP_SESSIONS, weights, deposit, slots, stock, seed + m);
+                fleet[m].getTransactionRecord().resetRecord();
+
+                if (!journals.isEmpty()) {
+                    Path file = Paths.get(journals, "machine-" + machines + "-" + m + ".journal");
+                    Files.createDirectories(file.getParent());
+                    Files.deleteIfExists(file);
+                    fleet[m].setJournal(new PurchaseJournal(file, batch, window));
+                }
+            }
+
+            long start = System.nanoTime();
+            for (int m = 0; m < machines; m++) {
+                final int index = m;
+                served[m] = new Customers(sessions);
+                threads[m] = new Thread(() -> run(fleet[index], served[index], sessions, weights, deposit, slots, stock, seed + 1000 + index));
+                threads[m].start();
+            }
+            for (Thread thread : threads)
+                thread.join();
+            for (SpecialVendingMachine machine : fleet)
+                if (machine.getJournal() != null)
+                    machine.getJournal().commit();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            for (SpecialVendingMachine machine : fleet)
+                if (machine.getJournal() != null)
+                    machine.getJournal().close();
+
+            report(machines, served, seconds);
+        }
+    }
+
+    /**
+     * This method will serve a number of random customers on one machine.
+     * @param machine is the machine that serves the customers
+     * @param served is where the sessions are recorded
+     * @param sessions is the number of customers
+     * @param weights is the relative weight of every kind of session
+     * @param deposit is the deposit pattern: bills, coins or mixed
+     * @param slots is the number of regular slots
+     * @param stock is the number of units a restock fills a slot up to
+     * @param seed is the random seed
+     */
+    private static void run (SpecialVendingMachine machine, Customers served, int sessions, int[] weights,
+                             String deposit, int slots, int stock, long seed) {
+        Random random = new Random(seed);
+        CashHolder customer = new CashHolder("Customer");
+        CompoundSlot compound = machine.getCompoundItem("Combo");
+        int[] mix = weights.clone();
+        int totalWeight = 0;
+
+        // A machine built without a recipe has no compound item to buy
+        if (compound == null)
+            mix[1] = 0;
+        for (int weight : mix)
+            totalWeight += weight;
+        if (totalWeight <= 0)
+            throw new IllegalArgumentException("The weights of the sessions must add up to more than 0");
+
+        for (int s = 0; s < sessions; s++) {
+            int action = pick(mix, random.nextInt(totalWeight));
+            Slot slot = machine.getSlot(1 + random.nextInt(slots));
+            boolean coins = deposit.equals("coins") || (deposit.equals("mixed") && random.nextBoolean());
+            long price = (action == 1) ? compound.getItem().getPriceCentavos() : slot.getItem().getPriceCentavos();
+
+            long start = System.nanoTime();
+            if (action != 3)
+                pay(machine, price, coins, random);
+
+            switch (action) {
+                case 0:
+                    record(served, machine.purchase(slot.getSlotNum(), 1, customer), machine, customer);
+                    break;
+                case 1:
+                    record(served, machine.purchaseCompound(compound.getSlotNum(), 1, customer), machine, customer);
+                    break;
+                case 2:
+                    machine.cancelTransaction(customer);
+                    break;
+                default:
+                    for (Slot refill : machine.getSlots())
+                        if (refill.getItem() != null && refill.getQuantity() < stock)
+                            machine.addItemQuantity(refill.getItem().getName(), stock - refill.getQuantity());
+                    machine.sealEpoch();
+                    break;
+            }
+            served.latencies[action][served.counts[action]++] = System.nanoTime() - start;
+
+            // Put the change back into the reserve so the machine does not run out of coins
+            if ((s & 63) == 0)
+                customer.transferAll(machine.getMachineReserve());
+        }
+    }
+
+    /**
+     * This method will count the outcome of a purchase, and give back the money of a failed one.
+     * @param served is where the sessions are recorded
+     * @param result is the outcome of the purchase
+     * @param machine is the machine of the purchase
+     * @param customer is the customer who made the purchase
+     */
+    private static void record (Customers served, PurchaseResult result, SpecialVendingMachine machine, CashHolder customer) {
+        if (result.isSuccessful()) {
+            served.purchases++;
+        }
+        else {
+            served.failures++;
+            machine.cancelTransaction(customer);
+        }
+    }
+
+    /**
+     * This method will deposit enough money for the given price.
+     * @param machine is the machine to pay
+     * @param price is the amount to cover, in centavos
+     * @param coins is true to pay with coins, false to pay with a single bill
+     * @param random is the source of random choices
+     */
+    private static void pay (SpecialVendingMachine machine, long price, boolean coins, Random random) {
+        if (!coins) {
+            machine.acceptMoney(BILLS[random.nextInt(BILLS.length)], 1);
+            return;
+        }
+
+        long paid = 0;
+        while (paid < price) {
+            Denomination coin = COINS[random.nextInt(COINS.length)];
+            machine.acceptMoney(coin, 1);
+            paid += coin.getCentavos();
+        }
+    }
+
+    /**
+     * This method will choose a kind of session from its weight.
+     * @param weights is the relative weight of every kind of session
+     * @param roll is a random number below the sum of the weights
+     * @return the index of the chosen kind of session
+     */
+    private static int pick (int[] weights, int roll) {
+        for (int i = 0; i < weights.length; i++) {
+            if (roll < weights[i])
+                return i;
+            roll -= weights[i];
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * This method will print the throughput and latency of every kind of session, and of all of them together.
+     * @param machines is the number of machines in the fleet
+     * @param served is the sessions served by every machine
+     * @param seconds is how long the fleet took
+     */
+    private static void report (int machines, Customers[] served, double seconds) {
+        int purchases = 0;
+        int failures = 0;
+        long[] all = new long[0];
+
+        for (Customers customers : served) {
+            purchases += customers.purchases;
+            failures += customers.failures;
+        }
+
+        for (int action = 0; action < ACTIONS.length; action++) {
+            long[] merged = new long[0];
+
+            for (Customers customers : served) {
+                int offset = merged.length;
+                merged = Arrays.copyOf(merged, offset + customers.counts[action]);
+                System.arraycopy(customers.latencies[action], 0, merged, offset, customers.counts[action]);
+            }
+
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + merged.length);
+            System.arraycopy(merged, 0, all, offset, merged.length);
+            print(machines, ACTIONS[action], merged, -1, -1, seconds);
+        }
+        print(machines, "all", all, purchases, failures, seconds);
+    }
+
+    /**
+     * This method will print one line of the report.
+     * @param machines is the number of machines in the fleet
+     * @param session is the kind of session
+     * @param latencies is the time of every session of that kind, in nanoseconds
+     * @param purchases is the number of successful purchases, or -1 if it does not apply
+     * @param failures is the number of failed purchases, or -1 if it does not apply
+     * @param seconds is how long the fleet took
+     */
+    private static void print (int machines, String session, long[] latencies, int purchases, int failures, double seconds) {
+        Arrays.sort(latencies);
+        System.out.println(machines + "," + session + "," + latencies.length + ","
+            + (purchases < 0 ? "" : purchases) + "," + (failures < 0 ? "" : failures) + ","
+            + String.format("%.3f", seconds) + "," + String.format("%.0f", latencies.length / seconds) + ","
+            + (purchases < 0 ? "" : String.format("%.0f", purchases / seconds)) + ","
+            + micros(percentile(latencies, 0.50)) + "," + micros(percentile(latencies, 0.99)) + ","
+            + micros(percentile(latencies, 0.999)));
+    }
+
+    /**
+     * This method will find a percentile of sorted latencies.
+     * @param sorted is the latencies in ascending order
+     * @param fraction is the percentile, between 0 and 1
+     * @return the latency at that percentile, or 0 if there are none
+     */
+    private static long percentile (long[] sorted, double fraction) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    /**
+     * This method will format nanoseconds as microseconds.
+     * @param nanos is the time in nanoseconds
+     * @return the time in microseconds with one decimal place
+     */
+    private static String micros (long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+}
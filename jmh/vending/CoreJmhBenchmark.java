@@ -0,0 +1,83 @@
+package vending;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CoreJmhBenchmark class runs the operations of CoreBenchmark under JMH: regular and compound purchases,
+ * compound availability, change checks and payouts, the cash holder operations, filling a machine with
+ * insertInEmpty and building the sales report, for every combination of the JMH parameters.
+ *
+ * JMH does not accept a benchmark in the default package, and a class in a package cannot name the classes
+ * of the vending machine, so the operation is built once per trial by CoreBenchmark.newOperation, reached
+ * by reflection, and only called through LongUnaryOperator while measuring.
+ *
+ * Usage: mvn package, then java -jar target/benchmarks.jar [-p benchmark=buyRegularItem] [-prof gc]
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoreJmhBenchmark {
+    // Declaration of variables
+    @Param({"buyRegularItem", "buyCompoundItem", "computeCompoundQuantity", "compoundStockChange", "hasChange",
+            "giveChange", "transferAll", "getTotal", "countDenomination", "insertInEmpty", "salesReport"})
+    public String benchmark;
+
+    @Param({"8", "29"})
+    public int slots;
+
+    @Param({"10", "50"})
+    public int stock;
+
+    @Param({"20", "500"})
+    public int reserve;
+
+    @Param({"2", "6"})
+    public int recipe;
+
+    private LongUnaryOperator operation;
+    private long iteration;
+
+    /**
+     * Builds the machine and the operation of the benchmark for a trial.
+     * @throws ReflectiveOperationException if CoreBenchmark cannot be reached
+     */
+    @Setup(Level.Trial)
+    public void setUp () throws ReflectiveOperationException {
+        Method factory = Class.forName("CoreBenchmark")
+            .getMethod("newOperation", String.class, int.class, int.class, int.class, int.class);
+
+        operation = (LongUnaryOperator) factory.invoke(null, benchmark, slots, stock, reserve, recipe);
+        iteration = 0;
+    }
+
+    /**
+     * Runs the operation once.
+     * @return the value computed by the operation, so it cannot be optimized away
+     */
+    @Benchmark
+    public long run () {
+        return operation.applyAsLong(iteration++);
+    }
+}
@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The AllocationBudgetTest class fails the build when an operation of the purchase path allocates
+ * more bytes than its budget in AllocationBudget. It is skipped on virtual machines that do not count
+ * the bytes allocated by a thread. Every measurement is appended to target/allocation-history.csv, in the
+ * format of the history of AllocationBudget, so the figures of past builds can be compared.
+ *
+ * @author Ampatin, Ian Kenneth J
+ * @author Paredes, Bill Jethro P
+ */
+
+public class AllocationBudgetTest {
+    // Declaration of constants
+    private static final int OPS = 50000;
+    private static final String HISTORY = "target/allocation-history.csv";
+    private static final String TIME = Instant.now().toString();
+
+    /**
+     * Checks that an operation stays within its allocation budget.
+     * @param operation is the name of the operation
+     * @throws IOException if the history file cannot be written
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"buyRegularItem", "buyCompoundItem", "acceptMoney", "cancelTransaction"})
+    public void staysWithinBudget (String operation) throws IOException {
+        assumeTrue(BenchmarkHarness.allocatedBytes() >= 0, "This virtual machine does not count allocated bytes");
+
+        double bytes = AllocationBudget.bytesPerOp(operation, OPS);
+        long budget = AllocationBudget.getBudget(operation);
+
+        AllocationBudget.appendHistory(HISTORY, TIME, AllocationBudget.result(operation, bytes, budget));
+        assertTrue(bytes <= budget, () -> operation + " allocated " + String.format("%.1f", bytes)
+            + " bytes per operation, over its budget of " + budget);
+    }
+}